@@ -0,0 +1,166 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.andoku.model.AndokuPuzzle;
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.ValueSet;
+import com.googlecode.andoku.solver.DlxPuzzleSolver;
+import com.googlecode.andoku.solver.SingleSolutionReporter;
+
+/**
+ * Model operations that run on the UI thread while a game is played. The games are bundled
+ * puzzles with every other empty cell filled in and one wrong value, so that error checking has
+ * something to find.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AndokuPuzzleBenchmark {
+	private static final int GAMES = 16;
+
+	@Param({ "standard", "squiggly" })
+	public String layout;
+
+	@Param({ "n", "x", "h", "p", "c" })
+	public String variant;
+
+	private AndokuPuzzle[] games;
+	private byte[][] mementos;
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<String> lines = PuzzleFiles.readLines(layout, variant, "3");
+
+		final int count = Math.min(GAMES, lines.size());
+		games = new AndokuPuzzle[count];
+		mementos = new byte[count][];
+
+		Puzzle[] puzzles = PuzzleFiles.decode(lines.subList(0, count));
+		for (int i = 0; i < count; i++) {
+			games[i] = createGame(puzzles[i]);
+			mementos[i] = games[i].saveToMemento();
+		}
+	}
+
+	/**
+	 * The next game, restored from its memento before every invocation, for operations that modify
+	 * the game.
+	 */
+	@State(Scope.Thread)
+	public static class RestoredGame {
+		AndokuPuzzle game;
+
+		@Setup(Level.Invocation)
+		public void restore(AndokuPuzzleBenchmark benchmark) {
+			final int i = benchmark.nextIndex();
+			game = benchmark.games[i];
+			game.restoreFromMemento(benchmark.mementos[i]);
+		}
+	}
+
+	@Benchmark
+	public byte[] saveToMemento() {
+		return nextGame().saveToMemento();
+	}
+
+	@Benchmark
+	public boolean restoreFromMemento() {
+		final int i = nextIndex();
+		return games[i].restoreFromMemento(mementos[i]);
+	}
+
+	@Benchmark
+	public boolean checkForErrors() {
+		return nextGame().checkForErrors(true);
+	}
+
+	@Benchmark
+	public int eliminateValues(RestoredGame restored) {
+		return restored.game.eliminateValues();
+	}
+
+	private AndokuPuzzle nextGame() {
+		return games[nextIndex()];
+	}
+
+	private int nextIndex() {
+		final int i = next;
+		if (++next == games.length)
+			next = 0;
+		return i;
+	}
+
+	private static AndokuPuzzle createGame(Puzzle puzzle) {
+		SingleSolutionReporter reporter = new SingleSolutionReporter();
+		new DlxPuzzleSolver().solve(puzzle, reporter);
+		Puzzle solution = reporter.getSolution();
+
+		AndokuPuzzle game = new AndokuPuzzle(null, puzzle, Difficulty.UNKNOWN);
+		game.computeSolution();
+
+		final int size = puzzle.getSize();
+		boolean fill = false;
+		boolean wrong = true;
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (puzzle.getValue(row, col) != Puzzle.UNDEFINED)
+					continue;
+
+				fill = !fill;
+				if (!fill)
+					continue;
+
+				int value = solution.getValue(row, col);
+				if (wrong) {
+					value = (value + 1) % size;
+					wrong = false;
+				}
+
+				game.setValues(row, col, ValueSet.of(value));
+			}
+		}
+
+		return game;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+/**
+ * Reads the bundled puzzle files. The directory defaults to the assets folder of the Andoku
+ * project and can be changed with the system property <code>andoku.puzzles</code>.
+ */
+final class PuzzleFiles {
+	private static final String DEFAULT_PUZZLES_DIR = "../Andoku/assets/puzzles";
+
+	private PuzzleFiles() {
+	}
+
+	/**
+	 * Returns the puzzle lines of the file <code>layout_variant_difficulty.adk</code>, for example
+	 * <code>squiggly_x_3.adk</code>.
+	 */
+	public static List<String> readLines(String layout, String variant, String difficulty)
+			throws IOException {
+		String dir = System.getProperty("andoku.puzzles", DEFAULT_PUZZLES_DIR);
+		File file = new File(dir, layout + "_" + variant + "_" + difficulty + ".adk");
+
+		List<String> lines = new ArrayList<String>();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+				"US-ASCII"));
+		try {
+			while (true) {
+				String line = reader.readLine();
+				if (line == null)
+					break;
+
+				if (line.length() == 0 || line.startsWith("#"))
+					continue;
+
+				lines.add(line);
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		if (lines.isEmpty())
+			throw new IOException("No puzzles in " + file);
+
+		return lines;
+	}
+
+	public static Puzzle[] decode(List<String> lines) {
+		Puzzle[] puzzles = new Puzzle[lines.size()];
+		for (int i = 0; i < puzzles.length; i++)
+			puzzles[i] = PuzzleDecoder.decode(lines.get(i));
+		return puzzles;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.solver.BitmaskPuzzleSolver;
+import com.googlecode.andoku.solver.BrutePuzzleSolver;
+import com.googlecode.andoku.solver.BufferSolutionReporter;
+import com.googlecode.andoku.solver.DlxPuzzleSolver;
+import com.googlecode.andoku.solver.PuzzleSolver;
+
+/**
+ * Checks the bundled puzzles for a unique solution, the way the game does before a puzzle is
+ * played. One operation solves one puzzle; the puzzles of a file are used in turn. The parameters
+ * select the puzzle file, so results are reported per puzzle type and difficulty.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolverBenchmark {
+	@Param({ "standard", "squiggly" })
+	public String layout;
+
+	@Param({ "n", "x", "h", "p", "c" })
+	public String variant;
+
+	@Param({ "1", "2", "3", "4", "5" })
+	public String difficulty;
+
+	@Param({ "dlx", "brute", "bitmask" })
+	public String solver;
+
+	private Puzzle[] puzzles;
+	private PuzzleSolver puzzleSolver;
+	private BufferSolutionReporter reporter;
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		puzzles = PuzzleFiles.decode(PuzzleFiles.readLines(layout, variant, difficulty));
+		puzzleSolver = createSolver(solver);
+
+		final int size = puzzles[0].getSize();
+		reporter = new BufferSolutionReporter(new int[size * size], 2);
+	}
+
+	@Benchmark
+	public long checkUniqueness() {
+		Puzzle puzzle = puzzles[next];
+		if (++next == puzzles.length)
+			next = 0;
+
+		reporter.reset();
+		puzzleSolver.solve(puzzle, reporter);
+		return reporter.getSolutionCount();
+	}
+
+	private static PuzzleSolver createSolver(String name) {
+		if (name.equals("dlx"))
+			return new DlxPuzzleSolver();
+		if (name.equals("brute"))
+			return new BrutePuzzleSolver();
+		if (name.equals("bitmask"))
+			return new BitmaskPuzzleSolver();
+
+		throw new IllegalArgumentException("Unknown solver: " + name);
+	}
+}
@@ -66,6 +66,20 @@ public class AndokuDatabasePuzzleTest extends AndroidTestCase {
 		assertEquals(extra, loaded.getExtraRegions());
 	}
 
+	public void testPuzzleWithSolutionRoundtrip() throws Exception {
+		long folderId = db.createFolder("folder");
+
+		String clues = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.";
+		String solution = "781429653642853971935176824167985342329741568854632197496317285518294736273568419";
+
+		PuzzleInfo puzzleInfo = new PuzzleInfo.Builder(clues).setSolution(solution).build();
+		db.insertPuzzle(folderId, puzzleInfo);
+		db.insertPuzzle(folderId, new PuzzleInfo.Builder(clues).build());
+
+		assertEquals(solution, db.loadPuzzle(folderId, 0).getSolution());
+		assertEquals(PuzzleInfo.SOLUTION_NONE, db.loadPuzzle(folderId, 1).getSolution());
+	}
+
 	public void testInsertPuzzles() throws Exception {
 		long folderId = db.createFolder("folder");
 
@@ -139,6 +153,30 @@ public class AndokuDatabasePuzzleTest extends AndroidTestCase {
 		assertEquals(0, db.getNumberOfPuzzles(folderId));
 	}
 
+	public void testDeletePuzzleRenumbersFollowingPuzzles() throws Exception {
+		long folderId = db.createFolder("folder");
+
+		String clues1 = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.";
+		String clues2 = "63.2.8.1.2...5..891.9.6..3...8..6.5....187....6.5..9...9..7.1.681..2...5.2.4.3.97";
+		String clues3 = "...1...4.195..8...34..2.1.9...91.5..6.98.24.7..1.34...2.8.4..71...7..832.1...9...";
+
+		long id1 = db.insertPuzzle(folderId, new PuzzleInfo.Builder(clues1).build());
+		long id2 = db.insertPuzzle(folderId, new PuzzleInfo.Builder(clues2).build());
+		long id3 = db.insertPuzzle(folderId, new PuzzleInfo.Builder(clues3).build());
+
+		db.deletePuzzle(id2);
+
+		assertEquals(2, db.getNumberOfPuzzles(folderId));
+		assertEquals(0, db.getPuzzleNumber(folderId, id1));
+		assertEquals(-1, db.getPuzzleNumber(folderId, id2));
+		assertEquals(1, db.getPuzzleNumber(folderId, id3));
+		assertEquals(clues3, db.loadPuzzle(folderId, 1).getClues());
+		assertNull(db.loadPuzzle(folderId, 2));
+
+		long id4 = db.insertPuzzle(folderId, new PuzzleInfo.Builder(clues2).build());
+		assertEquals(2, db.getPuzzleNumber(folderId, id4));
+	}
+
 	public void testPuzzlesBelongToFolder() throws Exception {
 		long folderId1 = db.createFolder("folder1");
 		long folderId2 = db.createFolder("folder2");
@@ -286,6 +286,49 @@ public class AndokuDatabaseSaveGameTest extends AndroidTestCase {
 		assertEquals((800 + 900) / 2, statistics.getAverageTime());
 	}
 
+	public void testStatisticsFollowChanges() throws Exception {
+		AndokuPuzzle puzzle1 = MockPuzzleSource.createSolvedPuzzle(1);
+		TickTimer timer1 = new TickTimer(new MockTickListener());
+		timer1.setTime(700);
+		AndokuPuzzle puzzle2 = MockPuzzleSource.createSolvedPuzzle(4);
+		TickTimer timer2 = new TickTimer(new MockTickListener());
+		timer2.setTime(800);
+		AndokuPuzzle puzzle3 = MockPuzzleSource.createSolvedPuzzle(7);
+		TickTimer timer3 = new TickTimer(new MockTickListener());
+		timer3.setTime(900);
+
+		db.saveGame(new PuzzleId("mock:17", 1), puzzle1, timer1);
+		db.saveGame(new PuzzleId("mock:17", 2), puzzle2, timer2);
+		db.saveGame(new PuzzleId("mock:17", 3), puzzle3, timer3);
+		db.saveGame(new PuzzleId("mock:17", 3), puzzle3, timer3);
+
+		GameStatistics statistics = db.getStatistics("mock:17");
+		assertEquals(3, statistics.numGamesSolved);
+		assertEquals(700, statistics.minTime);
+		assertEquals(700 + 800 + 900, statistics.sumTime);
+		assertEquals(800, statistics.getMedianTime(), 8);
+
+		db.delete(new PuzzleId("mock:17", 1));
+
+		statistics = db.getStatistics("mock:17");
+		assertEquals(2, statistics.numGamesSolved);
+		assertEquals(800, statistics.minTime);
+		assertEquals(800 + 900, statistics.sumTime);
+
+		db.saveGame(new PuzzleId("mock:17", 2), MockPuzzleSource.createPuzzle(4), timer2);
+
+		statistics = db.getStatistics("mock:17");
+		assertEquals(1, statistics.numGamesSolved);
+		assertEquals(900, statistics.minTime);
+		assertEquals(900, statistics.getMedianTime(), 9);
+
+		db.deleteAll("mock:17");
+
+		statistics = db.getStatistics("mock:17");
+		assertEquals(0, statistics.numGamesSolved);
+		assertEquals(0, statistics.sumTime);
+	}
+
 	public void testGetPuzzleIdByRowId() throws Exception {
 		AndokuPuzzle puzzle1 = MockPuzzleSource.createPuzzle(1);
 		TickTimer timer1 = new TickTimer(new MockTickListener());
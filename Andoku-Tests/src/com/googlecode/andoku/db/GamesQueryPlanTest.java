@@ -0,0 +1,134 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.test.AndroidTestCase;
+
+import com.googlecode.andoku.source.PuzzleSourceIds;
+
+/**
+ * Guards the games table queries of {@link AndokuDatabase} against full table scans and temporary
+ * sort trees. The queries mirror the ones issued by the database methods named in each test.
+ */
+public class GamesQueryPlanTest extends AndroidTestCase {
+	private static final String SOURCE = PuzzleSourceIds.forAssetFolder("standard_n_1");
+
+	private AndokuDatabase db;
+	private SQLiteDatabase sqlite;
+
+	@Override
+	protected void setUp() throws Exception {
+		db = new AndokuDatabase(getContext());
+		db.resetAll();
+
+		String path = getContext().getDatabasePath(AndokuDatabase.DATABASE_NAME).getPath();
+		sqlite = SQLiteDatabase.openDatabase(path, null, SQLiteDatabase.OPEN_READONLY);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		sqlite.close();
+		db.close();
+	}
+
+	public void testSaveGameLookup() throws Exception {
+		String sql = query(new String[] { AndokuDatabase.COL_ID }, AndokuDatabase.COL_SOURCE
+				+ "=? AND " + AndokuDatabase.COL_NUMBER + "=?", null);
+		assertCoveredBy(AndokuDatabase.INDEX_GAMES_SOURCE_NUMBER, sql, SOURCE, "0");
+	}
+
+	public void testLoadGame() throws Exception {
+		String sql = query(new String[] { AndokuDatabase.COL_PUZZLE, AndokuDatabase.COL_TIMER },
+				AndokuDatabase.COL_SOURCE + "=? AND " + AndokuDatabase.COL_NUMBER + "=?", null);
+		assertUses(AndokuDatabase.INDEX_GAMES_SOURCE_NUMBER, sql, SOURCE, "0");
+	}
+
+	public void testDelete() throws Exception {
+		String sql = "DELETE FROM " + AndokuDatabase.TABLE_GAMES + " WHERE "
+				+ AndokuDatabase.COL_SOURCE + "=? AND " + AndokuDatabase.COL_NUMBER + "=?";
+		assertUses(AndokuDatabase.INDEX_GAMES_SOURCE_NUMBER, sql, SOURCE, "0");
+	}
+
+	public void testFindGamesInProgress() throws Exception {
+		String[] columns = { AndokuDatabase.COL_ID, AndokuDatabase.COL_SOURCE,
+				AndokuDatabase.COL_NUMBER, AndokuDatabase.COL_TYPE, AndokuDatabase.COL_TIMER,
+				AndokuDatabase.COL_CREATED_DATE, AndokuDatabase.COL_MODIFIED_DATE };
+		String sql = query(columns, AndokuDatabase.COL_SOLVED + "=0",
+				AndokuDatabase.COL_MODIFIED_DATE + " DESC");
+		assertCoveredBy(AndokuDatabase.INDEX_GAMES_SOLVED_MODIFIED, sql);
+	}
+
+	public void testFindGamesBySource() throws Exception {
+		String[] columns = { AndokuDatabase.COL_NUMBER, AndokuDatabase.COL_SOLVED };
+		String sql = query(columns, AndokuDatabase.COL_SOURCE + "=?", AndokuDatabase.COL_NUMBER);
+		assertCoveredBy(AndokuDatabase.INDEX_GAMES_SOURCE_NUMBER, sql, SOURCE);
+	}
+
+	public void testStatisticsFastestTime() throws Exception {
+		String[] columns = { "MIN(" + AndokuDatabase.COL_TIMER + ")" };
+		String sql = query(columns, AndokuDatabase.COL_SOURCE + "=? AND "
+				+ AndokuDatabase.COL_SOLVED + "=1", null);
+		assertCoveredBy(AndokuDatabase.INDEX_GAMES_SOURCE_SOLVED, sql, SOURCE);
+	}
+
+	public void testStatisticsRebuild() throws Exception {
+		String[] columns = { AndokuDatabase.COL_TIMER };
+		String sql = query(columns, AndokuDatabase.COL_SOURCE + "=? AND "
+				+ AndokuDatabase.COL_SOLVED + "=1", AndokuDatabase.COL_TIMER);
+		assertCoveredBy(AndokuDatabase.INDEX_GAMES_SOURCE_SOLVED, sql, SOURCE);
+	}
+
+	private static String query(String[] columns, String selection, String orderBy) {
+		return SQLiteQueryBuilder.buildQueryString(false, AndokuDatabase.TABLE_GAMES, columns,
+				selection, null, null, orderBy, null);
+	}
+
+	private void assertCoveredBy(String index, String sql, String... args) {
+		String plan = explain(sql, args);
+		assertTrue(plan, plan.contains("COVERING INDEX " + index));
+	}
+
+	private void assertUses(String index, String sql, String... args) {
+		String plan = explain(sql, args);
+		assertTrue(plan, plan.contains("INDEX " + index));
+	}
+
+	private String explain(String sql, String... args) {
+		StringBuilder plan = new StringBuilder();
+
+		Cursor cursor = sqlite.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+		try {
+			// the detail column is the last one in all SQLite versions
+			while (cursor.moveToNext())
+				plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+		}
+		finally {
+			cursor.close();
+		}
+
+		String result = plan.toString();
+		assertFalse(result, result.contains("TEMP B-TREE"));
+		return result;
+	}
+}
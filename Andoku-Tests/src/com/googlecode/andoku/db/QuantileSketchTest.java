@@ -0,0 +1,78 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.db;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class QuantileSketchTest extends TestCase {
+	public void testEmpty() throws Exception {
+		QuantileSketch sketch = new QuantileSketch();
+		assertEquals(0, sketch.getCount());
+		assertEquals(0, sketch.getQuantile(0.5));
+		assertEquals(0, QuantileSketch.fromByteArray(sketch.toByteArray()).getCount());
+	}
+
+	public void testQuantilesWithinRelativeAccuracy() throws Exception {
+		Random random = new Random(17);
+		long[] values = new long[1001];
+		QuantileSketch sketch = new QuantileSketch();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 60000 + random.nextInt(3600000);
+			sketch.add(values[i]);
+		}
+
+		Arrays.sort(values);
+		for (double quantile : new double[] { 0, 0.1, 0.5, 0.9, 1 }) {
+			long expected = values[(int) (quantile * (values.length - 1))];
+			assertEquals(expected, sketch.getQuantile(quantile), expected * 0.01);
+		}
+	}
+
+	public void testRemove() throws Exception {
+		QuantileSketch sketch = new QuantileSketch();
+		sketch.add(1000);
+		sketch.add(2000);
+		sketch.add(3000);
+
+		assertTrue(sketch.remove(1000));
+		assertFalse(sketch.remove(1000));
+		assertFalse(sketch.remove(50000));
+		assertEquals(2, sketch.getCount());
+		assertEquals(2000, sketch.getQuantile(0), 20);
+	}
+
+	public void testSerialization() throws Exception {
+		QuantileSketch sketch = new QuantileSketch();
+		sketch.add(5000);
+		sketch.add(700000);
+		sketch.add(700001);
+		sketch.remove(5000);
+
+		QuantileSketch copy = QuantileSketch.fromByteArray(sketch.toByteArray());
+		assertEquals(2, copy.getCount());
+		assertEquals(sketch.getQuantile(0), copy.getQuantile(0));
+		assertEquals(sketch.getQuantile(1), copy.getQuantile(1));
+		assertTrue(copy.remove(700000));
+	}
+}
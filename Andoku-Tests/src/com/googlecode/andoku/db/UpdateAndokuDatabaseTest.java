@@ -29,6 +29,7 @@ import java.io.OutputStream;
 
 import android.content.res.AssetManager;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.test.InstrumentationTestCase;
 
 import com.googlecode.andoku.model.PuzzleType;
@@ -73,6 +74,77 @@ public class UpdateAndokuDatabaseTest extends InstrumentationTestCase {
 		assertFalse(cursor.moveToNext());
 	}
 
+	public void testSolutionsTableAfterUpgradeFromVersion1() throws Exception {
+		installDb("save_games.db.v1");
+
+		AndokuDatabase db = new AndokuDatabase(getInstrumentation().getTargetContext());
+		assertNull(db.loadSolution(42, "1.."));
+
+		db.saveSolution(42, "1..", "123");
+		assertEquals("123", db.loadSolution(42, "1.."));
+		assertNull(db.loadSolution(42, "2.."));
+		db.close();
+	}
+
+	public void testPuzzleOrdinalsAfterUpgradeFromVersion4() throws Exception {
+		installDb("save_games.db.v4");
+
+		AndokuDatabase db = new AndokuDatabase(getInstrumentation().getTargetContext());
+
+		// folder 1 holds puzzles 1, 3 and 4 (deleted); folder 2 holds puzzles 2 and 5
+		assertEquals(2, db.getNumberOfPuzzles(1));
+		assertEquals(2, db.getNumberOfPuzzles(2));
+
+		assertEquals(0, db.getPuzzleNumber(1, 1));
+		assertEquals(1, db.getPuzzleNumber(1, 3));
+		assertEquals(0, db.getPuzzleNumber(2, 2));
+		assertEquals(1, db.getPuzzleNumber(2, 5));
+
+		assertTrue(db.loadPuzzle(1, 1).getClues().startsWith("...1...4.1"));
+		assertTrue(db.loadPuzzle(2, 1).getClues().startsWith("981...7..3"));
+		assertNull(db.loadPuzzle(1, 2));
+
+		PuzzleInfo puzzle = new PuzzleInfo.Builder(db.loadPuzzle(2, 0).getClues()).build();
+		long id = db.insertPuzzle(1, puzzle);
+		assertEquals(2, db.getPuzzleNumber(1, id));
+		db.close();
+	}
+
+	public void testGamesIndexesAfterUpgradeFromVersion4() throws Exception {
+		installDb("save_games.db.v4");
+
+		AndokuDatabase db = new AndokuDatabase(getInstrumentation().getTargetContext());
+		assertFalse(db.hasGamesInProgress());
+		db.close();
+
+		String path = getInstrumentation().getTargetContext().getDatabasePath(
+				AndokuDatabase.DATABASE_NAME).getPath();
+		SQLiteDatabase sqlite = SQLiteDatabase.openDatabase(path, null,
+				SQLiteDatabase.OPEN_READONLY);
+		try {
+			String[] columns = { "name" };
+			String selection = "type='index' AND tbl_name=?";
+			String[] selectionArgs = { AndokuDatabase.TABLE_GAMES };
+			Cursor cursor = sqlite.query("sqlite_master", columns, selection, selectionArgs, null,
+					null, "name");
+			try {
+				assertTrue(cursor.moveToNext());
+				assertEquals(AndokuDatabase.INDEX_GAMES_SOLVED_MODIFIED, cursor.getString(0));
+				assertTrue(cursor.moveToNext());
+				assertEquals(AndokuDatabase.INDEX_GAMES_SOURCE_NUMBER, cursor.getString(0));
+				assertTrue(cursor.moveToNext());
+				assertEquals(AndokuDatabase.INDEX_GAMES_SOURCE_SOLVED, cursor.getString(0));
+				assertFalse(cursor.moveToNext());
+			}
+			finally {
+				cursor.close();
+			}
+		}
+		finally {
+			sqlite.close();
+		}
+	}
+
 	private void installDb(String fileName) throws IOException, FileNotFoundException {
 		AssetManager assets = getInstrumentation().getContext().getAssets();
 		InputStream in = assets.open(fileName);
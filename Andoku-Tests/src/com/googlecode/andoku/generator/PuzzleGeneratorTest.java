@@ -0,0 +1,84 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.generator;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.AndokuPuzzle;
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.PuzzleType;
+import com.googlecode.andoku.solver.DlxPuzzleSolver;
+import com.googlecode.andoku.solver.UniqueSolutionReporter;
+
+public class PuzzleGeneratorTest extends TestCase {
+	public void testGeneratesUniquePuzzlesOfEveryType() throws Exception {
+		PuzzleGenerator generator = new PuzzleGenerator(new Random(1));
+
+		for (PuzzleType puzzleType : PuzzleType.values()) {
+			Puzzle puzzle = generator.generate(puzzleType);
+
+			assertUnique(puzzle);
+			AndokuPuzzle andokuPuzzle = new AndokuPuzzle(null, puzzle, Difficulty.UNKNOWN);
+			assertEquals(puzzleType, andokuPuzzle.getPuzzleType());
+		}
+	}
+
+	public void testParallelGenerator() throws Exception {
+		ParallelPuzzleGenerator generator = new ParallelPuzzleGenerator(PuzzleType.SQUIGGLY_X, 2, 2,
+				1);
+		generator.start();
+		try {
+			for (int i = 0; i < 4; i++)
+				assertUnique(generator.take());
+		}
+		finally {
+			generator.shutdown();
+		}
+	}
+
+	public void testParallelGeneratorTakeWhenNotRunning() throws Exception {
+		ParallelPuzzleGenerator generator = new ParallelPuzzleGenerator(PuzzleType.STANDARD, 1, 1,
+				1);
+		assertTakeFails(generator);
+
+		generator.start();
+		generator.shutdown();
+		assertTakeFails(generator);
+	}
+
+	private void assertTakeFails(ParallelPuzzleGenerator generator) throws InterruptedException {
+		try {
+			generator.take();
+			fail();
+		}
+		catch (IllegalStateException expected) {
+		}
+	}
+
+	private void assertUnique(Puzzle puzzle) {
+		UniqueSolutionReporter reporter = new UniqueSolutionReporter();
+		new DlxPuzzleSolver().solve(puzzle, reporter);
+		assertTrue(reporter.hasUniqueSolution());
+	}
+}
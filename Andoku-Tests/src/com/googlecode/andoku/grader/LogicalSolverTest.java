@@ -0,0 +1,78 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.grader;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class LogicalSolverTest extends TestCase {
+	private static final String EASY = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.";
+	private static final String SQUIGGLY_X = ".8..7.........1..5......7.2........79.......65........7.2......3..1.........3..7.|111222233111223233144253333144255666144555667444558667999958667998988777998888777|X";
+	private static final String EMPTY = ".................................................................................";
+
+	public void testEasyPuzzle() throws Exception {
+		Grade grade = new LogicalSolver().grade(PuzzleDecoder.decode(EASY));
+
+		assertTrue(grade.isValid());
+		assertTrue(grade.isSolved());
+		assertEquals(Difficulty.EASY, grade.getDifficulty());
+		assertEquals(Technique.HIDDEN_SINGLE, grade.getHardestTechnique());
+	}
+
+	public void testExtraRegions() throws Exception {
+		Grade grade = new LogicalSolver().grade(PuzzleDecoder.decode(SQUIGGLY_X));
+
+		assertTrue(grade.isValid());
+		assertTrue(grade.getCount(Technique.HIDDEN_SINGLE) > 0);
+		assertFalse(grade.getDifficulty() == Difficulty.EASY);
+	}
+
+	public void testUnsolvable() throws Exception {
+		Grade grade = new LogicalSolver().grade(PuzzleDecoder.decode(EMPTY));
+
+		assertTrue(grade.isValid());
+		assertFalse(grade.isSolved());
+		assertEquals(Difficulty.FIENDISH, grade.getDifficulty());
+		assertTrue(grade.getTechniques().isEmpty());
+	}
+
+	public void testConflictingClues() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(EASY);
+		puzzle.set(0, 0, puzzle.getValue(0, 1));
+
+		Grade grade = new LogicalSolver().grade(puzzle);
+
+		assertFalse(grade.isValid());
+		assertEquals(Difficulty.UNKNOWN, grade.getDifficulty());
+	}
+
+	public void testSolverIsReusable() throws Exception {
+		LogicalSolver solver = new LogicalSolver();
+		String first = solver.grade(PuzzleDecoder.decode(SQUIGGLY_X)).toString();
+		solver.grade(PuzzleDecoder.decode(EASY));
+		solver.grade(PuzzleDecoder.decode(EMPTY));
+
+		assertEquals(first, solver.grade(PuzzleDecoder.decode(SQUIGGLY_X)).toString());
+	}
+}
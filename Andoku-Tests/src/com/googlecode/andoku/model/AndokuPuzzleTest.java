@@ -22,6 +22,7 @@ package com.googlecode.andoku.model;
 
 import junit.framework.TestCase;
 
+import com.googlecode.andoku.transfer.PuzzleDecoder;
 import com.googlecode.andoku.util.MockPuzzleSource;
 
 public class AndokuPuzzleTest extends TestCase {
@@ -74,4 +75,25 @@ public class AndokuPuzzleTest extends TestCase {
 		assertEquals(p1.getRegionErrors(), p2.getRegionErrors());
 		assertEquals(p1.getCellErrors(), p2.getCellErrors());
 	}
+
+	public void testPrecomputedSolution() throws Exception {
+		String line = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1."
+				+ "|||781429653642853971935176824167985342329741568854632197496317285518294736273568419";
+
+		Puzzle puzzle = PuzzleDecoder.decode(line);
+		Solution solution = PuzzleDecoder.decodeSolution(line);
+		assertNotNull(solution);
+		assertEquals(6, solution.getValue(0, 0));
+
+		AndokuPuzzle p1 = new AndokuPuzzle(null, puzzle, Difficulty.EASY, solution);
+		assertTrue(p1.hasSolution());
+
+		// swapped first two cells do not solve the puzzle
+		Solution wrong = PuzzleDecoder.decodeValues("871429653"
+				+ line.substring(line.length() - 72));
+		AndokuPuzzle p2 = new AndokuPuzzle(null, puzzle, Difficulty.EASY, wrong);
+		assertFalse(p2.hasSolution());
+
+		assertNull(PuzzleDecoder.decodeSolution(line.substring(0, 81)));
+	}
 }
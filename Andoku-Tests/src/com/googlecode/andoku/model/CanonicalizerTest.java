@@ -0,0 +1,108 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class CanonicalizerTest extends TestCase {
+	private static final String STANDARD = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.";
+
+	private static final String SQUIGGLY = "...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H";
+
+	public void testStandardTransformations() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(STANDARD);
+		CanonicalForm form = new Canonicalizer().canonicalize(puzzle);
+
+		// swap the first two bands, reverse the columns of the last stack and swap 1 and 2
+		Puzzle transformed = new Puzzle(puzzle.getGeometry());
+		for (int row = 0; row < 9; row++) {
+			for (int col = 0; col < 9; col++) {
+				int value = puzzle.getValue(row < 6 ? (row + 3) % 6 : row, col < 6 ? col : 14 - col);
+				if (value == 0 || value == 1)
+					value = 1 - value;
+				if (value != Puzzle.UNDEFINED)
+					transformed.set(col, row, value);
+			}
+		}
+
+		assertEquals(form, new Canonicalizer().canonicalize(transformed));
+	}
+
+	public void testSquigglyRotation() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(SQUIGGLY);
+
+		int[][] areaCodes = new int[9][9];
+		for (int row = 0; row < 9; row++)
+			for (int col = 0; col < 9; col++)
+				areaCodes[row][col] = puzzle.getAreaCode(8 - col, row);
+
+		Puzzle rotated = new Puzzle(areaCodes, ExtraRegions.hyper(9));
+		for (int row = 0; row < 9; row++)
+			for (int col = 0; col < 9; col++)
+				if (puzzle.getValue(8 - col, row) != Puzzle.UNDEFINED)
+					rotated.set(row, col, puzzle.getValue(8 - col, row));
+
+		Canonicalizer canonicalizer = new Canonicalizer();
+		assertEquals(canonicalizer.canonicalize(puzzle), canonicalizer.canonicalize(rotated));
+	}
+
+	public void testFingerprintDecodesToCanonicalPuzzle() throws Exception {
+		for (String line : new String[] { STANDARD, SQUIGGLY }) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+			CanonicalForm form = new Canonicalizer().canonicalize(puzzle);
+
+			int[] values = getValues(puzzle);
+			int[] canonical = form.toCanonical(values);
+			assertTrue(Arrays.equals(canonical, getValues(PuzzleDecoder.decode(form.getFingerprint()))));
+			assertTrue(Arrays.equals(values, form.fromCanonical(canonical)));
+		}
+	}
+
+	public void testSparseGridsGiveUp() throws Exception {
+		Puzzle empty = PuzzleDecoder.decode(".................................................................................");
+		Puzzle oneClue = PuzzleDecoder.decode("....5............................................................................");
+		Puzzle twoClues = PuzzleDecoder.decode("....5.....................................3......................................");
+
+		Canonicalizer canonicalizer = new Canonicalizer();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++) {
+			assertNull(canonicalizer.canonicalize(empty));
+			assertNull(canonicalizer.canonicalize(oneClue));
+			assertNull(canonicalizer.canonicalize(twoClues));
+		}
+		assertTrue(System.currentTimeMillis() - start < 5000);
+
+		// the instance is still usable afterwards
+		assertNotNull(canonicalizer.canonicalize(PuzzleDecoder.decode(STANDARD)));
+	}
+
+	private static int[] getValues(Puzzle puzzle) {
+		final int size = puzzle.getSize();
+		int[] values = new int[size * size];
+		for (int cell = 0; cell < values.length; cell++)
+			values[cell] = puzzle.getValue(cell / size, cell % size);
+		return values;
+	}
+}
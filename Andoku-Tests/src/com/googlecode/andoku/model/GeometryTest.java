@@ -0,0 +1,68 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+import junit.framework.TestCase;
+
+public class GeometryTest extends TestCase {
+	public void testInterned() throws Exception {
+		Geometry geometry = Geometry.of(standardAreaCodes(), new ExtraRegion[0]);
+
+		assertSame(geometry, Geometry.of(standardAreaCodes(), new ExtraRegion[0]));
+	}
+
+	public void testOffGridExtraRegionDoesNotAliasInternedLayout() throws Exception {
+		Position[] row0 = new Position[9];
+		Position[] row1 = new Position[9];
+		for (int col = 0; col < 9; col++) {
+			row0[col] = new Position(0, col);
+			row1[col] = new Position(1, col);
+		}
+
+		Geometry.of(standardAreaCodes(), new ExtraRegion[] { new ExtraRegion(row1) });
+		Geometry.of(standardAreaCodes(), new ExtraRegion[] { new ExtraRegion(row0) });
+
+		// (0,9) flattens to the same cell as (1,0)
+		row1[0] = new Position(0, 9);
+		assertOutsideGrid(row1);
+
+		// (1,-1) flattens to the same cell as (0,8)
+		row0[8] = new Position(1, -1);
+		assertOutsideGrid(row0);
+	}
+
+	private void assertOutsideGrid(Position[] positions) {
+		try {
+			Geometry.of(standardAreaCodes(), new ExtraRegion[] { new ExtraRegion(positions) });
+			fail();
+		}
+		catch (IllegalArgumentException expected) {
+		}
+	}
+
+	private static int[][] standardAreaCodes() {
+		int[][] areaCodes = new int[9][9];
+		for (int row = 0; row < 9; row++)
+			for (int col = 0; col < 9; col++)
+				areaCodes[row][col] = row / 3 * 3 + col / 3;
+		return areaCodes;
+	}
+}
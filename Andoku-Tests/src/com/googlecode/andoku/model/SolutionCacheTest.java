@@ -0,0 +1,118 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.solver.DlxPuzzleSolver;
+import com.googlecode.andoku.solver.UniqueSolutionReporter;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class SolutionCacheTest extends TestCase {
+	private static final String PUZZLE = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.";
+
+	private static final String OTHER = "...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H";
+
+	public void testSolutionOfEquivalentPuzzle() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(PUZZLE);
+		Puzzle solution = solve(puzzle);
+
+		// transposed copy with all digits shifted by one
+		Puzzle transposed = new Puzzle(puzzle.getGeometry());
+		for (int row = 0; row < 9; row++)
+			for (int col = 0; col < 9; col++)
+				if (puzzle.getValue(row, col) != Puzzle.UNDEFINED)
+					transposed.set(col, row, (puzzle.getValue(row, col) + 1) % 9);
+
+		Canonicalizer canonicalizer = new Canonicalizer();
+		SolutionCache cache = new SolutionCache(4, null);
+		cache.put(canonicalizer.canonicalize(puzzle), new Solution(solution));
+
+		Solution cached = cache.get(canonicalizer.canonicalize(transposed));
+		assertNotNull(cached);
+		for (int row = 0; row < 9; row++)
+			for (int col = 0; col < 9; col++)
+				assertEquals((solution.getValue(row, col) + 1) % 9, cached.getValue(col, row));
+	}
+
+	public void testEvictedSolutionIsLoadedFromStore() throws Exception {
+		MapStore store = new MapStore();
+		SolutionCache cache = new SolutionCache(1, store);
+
+		Puzzle puzzle = PuzzleDecoder.decode(PUZZLE);
+		AndokuPuzzle andokuPuzzle = new AndokuPuzzle(null, puzzle, Difficulty.UNKNOWN);
+		andokuPuzzle.setSolutionCache(cache);
+		assertTrue(andokuPuzzle.computeSolution());
+		assertEquals(1, store.saved);
+
+		Puzzle other = PuzzleDecoder.decode(OTHER);
+		cache.put(new Canonicalizer().canonicalize(other), new Solution(solve(other)));
+		assertEquals(2, store.saved);
+
+		AndokuPuzzle reopened = new AndokuPuzzle(null, puzzle, Difficulty.UNKNOWN);
+		reopened.setSolutionCache(cache);
+		assertTrue(reopened.computeSolution());
+		assertEquals(1, store.loaded);
+		assertEquals(2, store.saved);
+	}
+
+	public void testSparsePuzzleBypassesCache() throws Exception {
+		MapStore store = new MapStore();
+		SolutionCache cache = new SolutionCache(4, store);
+
+		Puzzle empty = new Puzzle(PuzzleDecoder.decode(PUZZLE).getGeometry());
+		AndokuPuzzle andokuPuzzle = new AndokuPuzzle(null, empty, Difficulty.UNKNOWN);
+		andokuPuzzle.setSolutionCache(cache);
+		andokuPuzzle.computeSolution();
+		assertEquals(0, store.lookups);
+		assertEquals(0, store.saved);
+	}
+
+	private static Puzzle solve(Puzzle puzzle) {
+		UniqueSolutionReporter reporter = new UniqueSolutionReporter();
+		new DlxPuzzleSolver().solve(puzzle, reporter);
+		assertTrue(reporter.hasUniqueSolution());
+		return reporter.getSolution();
+	}
+
+	private static final class MapStore implements SolutionCache.Store {
+		private final Map<String, String> solutions = new HashMap<String, String>();
+		int lookups;
+		int loaded;
+		int saved;
+
+		public String loadSolution(long hash, String fingerprint) {
+			lookups++;
+			String solution = solutions.get(fingerprint);
+			if (solution != null)
+				loaded++;
+			return solution;
+		}
+
+		public void saveSolution(long hash, String fingerprint, String solution) {
+			solutions.put(fingerprint, solution);
+			saved++;
+		}
+	}
+}
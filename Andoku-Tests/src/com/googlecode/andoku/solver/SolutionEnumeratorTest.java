@@ -0,0 +1,140 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.dlx.SearchState;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class SolutionEnumeratorTest extends TestCase {
+	// 310 solutions
+	private static final String STANDARD = "..4.2...9...75..42...4.8...4.6.....8.........5.....967...3.9...952.764..8...4.7..";
+	// 148 solutions
+	private static final String SQUIGGLY = "...............7.63...5.1..7.......8.5.9.2.6.5.......1..2.7...99.4...............|112222233112442233144442333115444533115555566775888566777988886779988966779999966";
+
+	public void testEnumeratesAllSolutions() throws Exception {
+		for (String line : new String[] { STANDARD, SQUIGGLY }) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+
+			List<String> solutions = enumerate(puzzle, 0);
+
+			assertEquals(countSolutions(puzzle), solutions.size());
+			assertEquals(solutions.size(), new HashSet<String>(solutions).size());
+		}
+	}
+
+	public void testResumeFromSerializedState() throws Exception {
+		for (String line : new String[] { STANDARD, SQUIGGLY }) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+			Set<String> expected = new HashSet<String>(enumerate(puzzle, 0));
+
+			for (int interval : new int[] { 1, 3, 37 }) {
+				List<String> resumed = enumerate(puzzle, interval);
+
+				assertEquals(expected.size(), resumed.size());
+				assertEquals(expected, new HashSet<String>(resumed));
+			}
+		}
+	}
+
+	public void testConflictingClues() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(STANDARD);
+		puzzle.set(0, 0, puzzle.getValue(0, 2));
+
+		assertNull(new SolutionEnumerator(puzzle).next());
+	}
+
+	public void testRejectsInconsistentState() throws Exception {
+		SolutionEnumerator enumerator = new SolutionEnumerator(PuzzleDecoder.decode(STANDARD));
+		enumerator.next();
+
+		byte[] bytes = serialize(enumerator.getState());
+
+		// drop the last level so that the level count no longer fits the phase
+		byte[] truncated = new byte[bytes.length - 8];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+		int levels = (bytes[9] & 0xff) << 24 | (bytes[10] & 0xff) << 16 | (bytes[11] & 0xff) << 8
+				| bytes[12] & 0xff;
+		levels--;
+		truncated[9] = (byte) (levels >>> 24);
+		truncated[10] = (byte) (levels >>> 16);
+		truncated[11] = (byte) (levels >>> 8);
+		truncated[12] = (byte) levels;
+
+		try {
+			deserialize(truncated);
+			fail();
+		}
+		catch (IOException expected) {
+		}
+	}
+
+	/**
+	 * Enumerates all solutions. If <code>interval</code> is not <code>0</code> the enumeration is
+	 * serialized and resumed with a new enumerator after every <code>interval</code> solutions.
+	 */
+	private List<String> enumerate(Puzzle puzzle, int interval) throws IOException {
+		List<String> solutions = new ArrayList<String>();
+
+		SolutionEnumerator enumerator = new SolutionEnumerator(puzzle);
+		for (Puzzle solution; (solution = enumerator.next()) != null;) {
+			assertTrue(solution.isSolved());
+			solutions.add(solution.toString());
+
+			if (interval != 0 && solutions.size() % interval == 0) {
+				SearchState state = deserialize(serialize(enumerator.getState()));
+				enumerator = new SolutionEnumerator(puzzle, state);
+			}
+		}
+
+		return solutions;
+	}
+
+	private long countSolutions(Puzzle puzzle) {
+		SolutionCounterReporter reporter = new SolutionCounterReporter();
+		new DlxPuzzleSolver().solve(puzzle, reporter);
+		return reporter.getCounter();
+	}
+
+	private byte[] serialize(SearchState state) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(baos);
+		state.writeTo(out);
+		out.close();
+		return baos.toByteArray();
+	}
+
+	private SearchState deserialize(byte[] bytes) throws IOException {
+		return SearchState.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+}
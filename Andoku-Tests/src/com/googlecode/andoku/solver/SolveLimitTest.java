@@ -0,0 +1,76 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class SolveLimitTest extends TestCase {
+	private static final String EMPTY = ".................................................................................";
+	private static final String UNIQUE = "9..1........9.23.612.....89.............6.............71.....252.96.7........5..7|112222334112222334111552334116553334666654444677755488677955888677999988677999988|H";
+
+	public void testCompleted() throws Exception {
+		for (PuzzleSolver solver : createSolvers()) {
+			SolutionCounterReporter reporter = new SolutionCounterReporter();
+			SolveResult result = solver.solve(PuzzleDecoder.decode(UNIQUE), reporter,
+					System.currentTimeMillis() + 60000, new CancellationToken());
+
+			assertEquals(SolveResult.COMPLETED, result);
+			assertEquals(1, reporter.getCounter());
+		}
+	}
+
+	public void testDeadlineExceeded() throws Exception {
+		for (PuzzleSolver solver : createSolvers()) {
+			SolveResult result = solver.solve(PuzzleDecoder.decode(EMPTY),
+					new SolutionCounterReporter(), System.currentTimeMillis() - 1, null);
+
+			assertEquals(SolveResult.DEADLINE_EXCEEDED, result);
+		}
+	}
+
+	public void testCancelled() throws Exception {
+		for (PuzzleSolver solver : createSolvers()) {
+			CancellationToken token = new CancellationToken();
+			token.cancel();
+
+			SolveResult result = solver.solve(PuzzleDecoder.decode(EMPTY),
+					new SolutionCounterReporter(), 0, token);
+
+			assertEquals(SolveResult.CANCELLED, result);
+		}
+	}
+
+	public void testUpdateLimitExceeded() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(EMPTY);
+		SolveResult result = new DlxPuzzleSolver(null, 100).solve(puzzle,
+				new SolutionCounterReporter(), 0, null);
+
+		assertEquals(SolveResult.UPDATE_LIMIT_EXCEEDED, result);
+	}
+
+	private PuzzleSolver[] createSolvers() {
+		return new PuzzleSolver[] { new DlxPuzzleSolver(), new BrutePuzzleSolver(),
+				new BitmaskPuzzleSolver() };
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class SolverAgreementTest extends TestCase {
+	// one puzzle of each bundled type: standard, squiggly, X, squiggly hyper, percent, squiggly color
+	private static final String[] PUZZLES = {
+			".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.",
+			"......5........7.63...5.1..7.......8.5.9.2.6.5.......1..2.7...99.4........1......|112222233112442233144442333115444533115555566775888566777988886779988966779999966",
+			"..53....2.3....4.9.7..2....2.7.....1364...9855.....7.6....4..9.7.1....5.4....81..||X",
+			"...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H",
+			"8.....7.97..8..5.1.5.....4......1......2.9......4......6.....5.5.9..8..43.1.....6||P",
+			"....6..97........8....1...3..........418.527..........2...3....6........79..4....|111122222131122442331124444533366664533367774566667774555589977855889979888889999|C" };
+
+	public void testUniqueSolutions() throws Exception {
+		for (String line : PUZZLES) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+			assertSolutionCount(line, 1, puzzle);
+		}
+	}
+
+	public void testCluesRemoved() throws Exception {
+		long maxSolutions = 0;
+
+		for (String line : PUZZLES) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+			Random random = new Random(line.hashCode());
+
+			for (int removed = 1; removed <= 5; removed++) {
+				puzzle = removeClue(puzzle, random);
+
+				long expected = countSolutions(new BrutePuzzleSolver(), puzzle);
+				assertTrue(expected >= 1);
+				assertSolutionCount(line + " - " + removed, expected, puzzle);
+
+				maxSolutions = Math.max(maxSolutions, expected);
+			}
+		}
+
+		assertTrue(maxSolutions > 1);
+	}
+
+	public void testConflictingClues() throws Exception {
+		for (String line : PUZZLES) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+
+			// duplicate the first clue in another cell of its row
+			int row = 0;
+			int col = 0;
+			while (puzzle.getValue(row, col) == Puzzle.UNDEFINED)
+				if (++col == 9) {
+					col = 0;
+					row++;
+				}
+
+			int value = puzzle.getValue(row, col);
+			for (int c = 0; c < 9; c++)
+				if (puzzle.getValue(row, c) == Puzzle.UNDEFINED) {
+					puzzle.set(row, c, value);
+					break;
+				}
+
+			assertSolutionCount(line, 0, puzzle);
+		}
+	}
+
+	public void testEliminatedValues() throws Exception {
+		for (String line : PUZZLES) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+			Random random = new Random(line.hashCode());
+			for (int removed = 1; removed <= 5; removed++)
+				puzzle = removeClue(puzzle, random);
+
+			// eliminate a value that is possible in the first empty cell
+			for (int cell = 0; cell < 81; cell++) {
+				int possible = puzzle.getPossibleValuesMask(cell / 9, cell % 9);
+				if (Integer.bitCount(possible) >= 2) {
+					puzzle.eliminateValue(cell / 9, cell % 9, Integer.numberOfTrailingZeros(possible));
+					break;
+				}
+			}
+
+			// the DLX solver does not look at eliminated values
+			assertEquals(line, countSolutions(new BrutePuzzleSolver(), puzzle), countSolutions(
+					new BitmaskPuzzleSolver(), puzzle));
+		}
+	}
+
+	private void assertSolutionCount(String message, long expected, Puzzle puzzle)
+			throws InterruptedException {
+		// twice so that the second DLX solve starts from a cached matrix template
+		for (int i = 0; i < 2; i++) {
+			assertEquals(message, expected, countSolutions(new DlxPuzzleSolver(), puzzle));
+			assertEquals(message, expected, countSolutions(new DlxPuzzleSolver(new Random(i)), puzzle));
+			assertEquals(message, expected, countSolutions(new BitmaskPuzzleSolver(), puzzle));
+			assertEquals(message, expected, countSolutions(new BitmaskPuzzleSolver(new Random(i)),
+					puzzle));
+			assertEquals(message, expected, ParallelSolutionCounter.count(puzzle, 2, 0));
+		}
+
+		assertEquals(message, expected, countSolutions(new BrutePuzzleSolver(), puzzle));
+	}
+
+	private long countSolutions(PuzzleSolver solver, Puzzle puzzle) {
+		SolutionCounterReporter reporter = new SolutionCounterReporter();
+		solver.solve(puzzle, reporter);
+		return reporter.getCounter();
+	}
+
+	private Puzzle removeClue(Puzzle puzzle, Random random) {
+		int cell;
+		do {
+			cell = random.nextInt(81);
+		}
+		while (puzzle.getValue(cell / 9, cell % 9) == Puzzle.UNDEFINED);
+
+		Puzzle result = new Puzzle(puzzle.getGeometry());
+		for (int row = 0; row < 9; row++)
+			for (int col = 0; col < 9; col++) {
+				int value = puzzle.getValue(row, col);
+				if (value != Puzzle.UNDEFINED && row * 9 + col != cell)
+					result.set(row, col, value);
+			}
+
+		return result;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class SolverStatisticsTest extends TestCase {
+	private static final String UNIQUE = "...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H";
+	private static final String AMBIGUOUS = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1..........5.8.1.";
+
+	public void testDlxSolver() throws Exception {
+		for (DlxPuzzleSolver solver : new DlxPuzzleSolver[] { new DlxPuzzleSolver(),
+				new DlxPuzzleSolver(new Random(1)) }) {
+			SolverStatistics statistics = new SolverStatistics();
+			solver.setStatistics(statistics);
+
+			long solutions = solve(solver, PuzzleDecoder.decode(AMBIGUOUS));
+
+			assertTrue(solutions > 1);
+			assertEquals(solutions, statistics.getSolutions());
+			assertEquals(solver.getNumberOfUpdates(), sumOfBranches(statistics));
+			assertTrue(statistics.getCovers() > 0);
+			assertEquals(statistics.getCovers(), statistics.getUncovers());
+			assertTrue(statistics.getTimeToFirstSolution() >= 0);
+		}
+	}
+
+	public void testBruteSolver() throws Exception {
+		BrutePuzzleSolver solver = new BrutePuzzleSolver();
+		SolverStatistics statistics = new SolverStatistics();
+		solver.setStatistics(statistics);
+
+		assertEquals(1, solve(solver, PuzzleDecoder.decode(UNIQUE)));
+
+		assertEquals(1, statistics.getSolutions());
+		assertTrue(statistics.getNodes() > 0);
+		assertTrue(statistics.getDeadEnds() > 0);
+		assertEquals(0, statistics.getCovers());
+		assertEquals(statistics.getDeadEnds(), countDeadEnds(statistics));
+	}
+
+	public void testResetOnSolve() throws Exception {
+		DlxPuzzleSolver solver = new DlxPuzzleSolver();
+		SolverStatistics statistics = new SolverStatistics();
+		solver.setStatistics(statistics);
+
+		solve(solver, PuzzleDecoder.decode(AMBIGUOUS));
+		long nodes = statistics.getNodes();
+		solve(solver, PuzzleDecoder.decode(AMBIGUOUS));
+
+		assertEquals(nodes, statistics.getNodes());
+	}
+
+	public void testNoSolution() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(UNIQUE);
+		puzzle.set(0, 0, puzzle.getValue(0, 3));
+
+		DlxPuzzleSolver solver = new DlxPuzzleSolver();
+		SolverStatistics statistics = new SolverStatistics();
+		solver.setStatistics(statistics);
+
+		assertEquals(0, solve(solver, puzzle));
+		assertEquals(0, statistics.getSolutions());
+		assertEquals(-1, statistics.getTimeToFirstSolution());
+	}
+
+	private long solve(PuzzleSolver solver, Puzzle puzzle) {
+		SolutionCounterReporter reporter = new SolutionCounterReporter();
+		solver.solve(puzzle, reporter);
+		return reporter.getCounter();
+	}
+
+	// every branch taken selects a row and counts as an update
+	private long sumOfBranches(SolverStatistics statistics) {
+		long sum = 0;
+		for (int depth = 0; depth <= statistics.getMaxDepth(); depth++) {
+			long[] histogram = statistics.getBranchingHistogram(depth);
+			for (int branches = 0; branches < histogram.length; branches++)
+				sum += branches * histogram[branches];
+		}
+		return sum;
+	}
+
+	private long countDeadEnds(SolverStatistics statistics) {
+		long deadEnds = 0;
+		for (int depth = 0; depth <= statistics.getMaxDepth(); depth++)
+			deadEnds += statistics.getBranchingHistogram(depth)[0];
+		return deadEnds;
+	}
+}
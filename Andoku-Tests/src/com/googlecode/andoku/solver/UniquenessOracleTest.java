@@ -0,0 +1,94 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+
+public class UniquenessOracleTest extends TestCase {
+	private static final String[] PUZZLES = {
+			".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.",
+			"...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H" };
+
+	public void testAgreesWithFullSolve() throws Exception {
+		for (String line : PUZZLES) {
+			Puzzle puzzle = PuzzleDecoder.decode(line);
+			UniquenessOracle oracle = new UniquenessOracle(solve(puzzle));
+
+			int unique = 0;
+			int ambiguous = 0;
+			for (int row = 0; row < 9; row++) {
+				for (int col = 0; col < 9; col++) {
+					if (puzzle.getValue(row, col) == Puzzle.UNDEFINED)
+						continue;
+
+					Puzzle removed = new Puzzle(puzzle);
+					removed.clear(row, col);
+
+					UniqueSolutionReporter reporter = new UniqueSolutionReporter();
+					new DlxPuzzleSolver().solve(removed, reporter);
+
+					boolean expected = reporter.hasUniqueSolution();
+					assertEquals(line + " " + row + "x" + col, expected, oracle.isUniqueWithout(puzzle,
+							row, col));
+
+					if (expected)
+						unique++;
+					else
+						ambiguous++;
+				}
+			}
+
+			assertTrue(unique > 0);
+			assertTrue(ambiguous > 0);
+		}
+	}
+
+	public void testRejectsMismatchingClue() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(PUZZLES[0]);
+		UniquenessOracle oracle = new UniquenessOracle(solve(puzzle));
+
+		try {
+			oracle.isUniqueWithout(puzzle, 0, 0);
+			fail();
+		}
+		catch (IllegalArgumentException expected) {
+		}
+
+		puzzle.clear(0, 1);
+		puzzle.set(0, 1, 0);
+		try {
+			oracle.isUniqueWithout(puzzle, 0, 1);
+			fail();
+		}
+		catch (IllegalArgumentException expected) {
+		}
+	}
+
+	private Puzzle solve(Puzzle puzzle) {
+		UniqueSolutionReporter reporter = new UniqueSolutionReporter();
+		new DlxPuzzleSolver().solve(puzzle, reporter);
+		assertTrue(reporter.hasUniqueSolution());
+		return reporter.getSolution();
+	}
+}
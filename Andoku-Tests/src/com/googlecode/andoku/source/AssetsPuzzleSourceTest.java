@@ -0,0 +1,94 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.source;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+
+import android.test.InstrumentationTestCase;
+
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+import com.googlecode.andoku.transfer.PuzzleEncoder;
+
+public class AssetsPuzzleSourceTest extends InstrumentationTestCase {
+	// test_3.adk has CRLF and LF line ends, comments, empty lines and no newline at the end
+	private static final String[] PUZZLES = {
+			".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1.|||781429653642853971935176824167985342329741568854632197496317285518294736273568419",
+			"63.2.8.1.2...5..891.9.6..3...8..6.5....187....6.5..9...9..7.1.681..2...5.2.4.3.97",
+			".9.1.6.43...27..9.283.....5.45......1..842..9......67.7.....432.1..35...63.5.8.1.|112223333111122233411122553446626533444666555774686655744889995778889999777788899|H|592186743461273598283794165345967821176842359829351674758619432917435286634528917" };
+
+	public void testNumberOfPuzzles() throws Exception {
+		assertEquals(PUZZLES.length, createSource().numberOfPuzzles());
+	}
+
+	public void testLoad() throws Exception {
+		AssetsPuzzleSource source = createSource();
+
+		for (int number = PUZZLES.length - 1; number >= 0; number--) {
+			PuzzleHolder holder = source.load(number);
+
+			assertEquals(number, holder.getNumber());
+			assertEquals(Difficulty.values()[2], holder.getDifficulty());
+
+			String expected = PuzzleEncoder.encode(PuzzleDecoder.decode(PUZZLES[number]),
+					PuzzleDecoder.decodeSolution(PUZZLES[number]));
+			assertEquals(expected, PuzzleEncoder.encode(holder.getPuzzle(), holder.getSolution()));
+		}
+
+		assertNull(source.load(1).getSolution());
+	}
+
+	public void testLoadOutOfRange() throws Exception {
+		AssetsPuzzleSource source = createSource();
+
+		try {
+			source.load(PUZZLES.length);
+			fail();
+		}
+		catch (IndexOutOfBoundsException expected) {
+		}
+	}
+
+	public void testSkipFullyWhenSkipReturnsZero() throws Exception {
+		InputStream in = new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }) {
+			@Override
+			public synchronized long skip(long n) {
+				return 0;
+			}
+		};
+
+		AssetsPuzzleSource.skipFully(in, 3);
+		assertEquals(4, in.read());
+
+		try {
+			AssetsPuzzleSource.skipFully(in, 1);
+			fail();
+		}
+		catch (EOFException expected) {
+		}
+	}
+
+	private AssetsPuzzleSource createSource() {
+		return new AssetsPuzzleSource(getInstrumentation().getContext().getAssets(), "test_3");
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.transfer;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Puzzle;
+
+public class PuzzleEncoderTest extends TestCase {
+	private static final String STANDARD = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1."
+			+ "|||781429653642853971935176824167985342329741568854632197496317285518294736273568419";
+
+	private static final String SQUIGGLY = "...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H";
+
+	private static final String SMALL = "1...3...........4...2....|||";
+
+	public void testRoundtrip() throws Exception {
+		assertEquals(STANDARD, PuzzleEncoder.encode(PuzzleDecoder.decode(STANDARD), PuzzleDecoder
+				.decodeSolution(STANDARD)));
+		assertEquals(SQUIGGLY, PuzzleEncoder.encode(PuzzleDecoder.decode(SQUIGGLY)));
+	}
+
+	public void testTrailingFieldsOmitted() throws Exception {
+		Puzzle puzzle = PuzzleDecoder.decode(SMALL);
+		assertEquals("1...3...........4...2....", PuzzleEncoder.encode(puzzle));
+		assertEquals("1...3...........4...2....||X", PuzzleEncoder.encode(PuzzleDecoder
+				.decode("1...3...........4...2....||x")));
+	}
+
+	public void testDecodeFromBytes() throws Exception {
+		byte[] buffer = ("\n" + SQUIGGLY + "\n").getBytes("US-ASCII");
+		Puzzle puzzle = PuzzleDecoder.decode(buffer, 1, SQUIGGLY.length());
+		assertEquals(PuzzleDecoder.decode(SQUIGGLY).getGeometry(), puzzle.getGeometry());
+		assertEquals(PuzzleDecoder.decode(SQUIGGLY).toString(), puzzle.toString());
+		assertNull(PuzzleDecoder.decodeSolution(buffer, 1, SQUIGGLY.length()));
+	}
+
+	public void testEncodeValue() throws Exception {
+		assertEquals('1', PuzzleEncoder.encodeValue(0));
+		assertEquals('9', PuzzleEncoder.encodeValue(8));
+		assertEquals('0', PuzzleEncoder.encodeValue(9));
+		assertEquals('A', PuzzleEncoder.encodeValue(10));
+	}
+}
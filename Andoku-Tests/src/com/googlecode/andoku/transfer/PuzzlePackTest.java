@@ -0,0 +1,77 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.transfer;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
+
+public class PuzzlePackTest extends TestCase {
+	private static final String STANDARD = ".8.4.96536428...7.......8....7..5.42...7.1...85.6..1....6.......1...47362735.8.1."
+			+ "|||781429653642853971935176824167985342329741568854632197496317285518294736273568419";
+
+	private static final String SQUIGGLY = "...3..9.8..98........7..1.6.3.......59.....63.......7.4.2..5........32..6.8..7...|112222233111122233411452333414455336444555666477556686777956886779998888779999988|H";
+
+	public void testRoundtrip() throws Exception {
+		File file = File.createTempFile("pack", ".adp");
+		try {
+			PuzzlePackWriter writer = new PuzzlePackWriter(file, 9, true);
+			writer.add(PuzzleDecoder.decode(STANDARD), Difficulty.EASY, PuzzleDecoder
+					.decodeSolution(STANDARD));
+			writer.add(PuzzleDecoder.decode(SQUIGGLY), Difficulty.HARD, null);
+			writer.add(PuzzleDecoder.decode(STANDARD), Difficulty.UNKNOWN, null);
+			writer.close();
+
+			PuzzlePack pack = PuzzlePack.open(file);
+			assertEquals(9, pack.getSize());
+			assertEquals(3, pack.getCount());
+			assertTrue(pack.hasSolutions());
+
+			assertSamePuzzle(PuzzleDecoder.decode(STANDARD), pack.getPuzzle(0));
+			assertSamePuzzle(PuzzleDecoder.decode(SQUIGGLY), pack.getPuzzle(1));
+			assertSamePuzzle(PuzzleDecoder.decode(STANDARD), pack.getPuzzle(2));
+
+			assertEquals(Difficulty.EASY, pack.getDifficulty(0));
+			assertEquals(Difficulty.HARD, pack.getDifficulty(1));
+			assertEquals(Difficulty.UNKNOWN, pack.getDifficulty(2));
+
+			Solution expected = PuzzleDecoder.decodeSolution(STANDARD);
+			Solution solution = pack.getSolution(0);
+			for (int row = 0; row < 9; row++)
+				for (int col = 0; col < 9; col++)
+					assertEquals(expected.getValue(row, col), solution.getValue(row, col));
+
+			assertNull(pack.getSolution(1));
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	private static void assertSamePuzzle(Puzzle expected, Puzzle actual) {
+		assertEquals(expected.getGeometry(), actual.getGeometry());
+		assertEquals(expected.toString(), actual.toString());
+	}
+}
@@ -0,0 +1,491 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.googlecode.andoku.grader.Grade;
+import com.googlecode.andoku.grader.LogicalSolver;
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.solver.BufferSolutionReporter;
+import com.googlecode.andoku.solver.DlxPuzzleSolver;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+import com.googlecode.andoku.transfer.PuzzleEncoder;
+
+/**
+ * Validates and grades <code>.adk</code> puzzle files.
+ * 
+ * Lines are streamed through a pipeline: the main thread reads lines, a thread pool decodes each
+ * puzzle, counts its solutions up to two, measures the search effort and grades it with the
+ * {@link LogicalSolver}, and a writer thread consumes the results in input order. At most a fixed
+ * number of lines per thread are in flight, so memory use does not depend on the size of the
+ * input.
+ * 
+ * <pre>
+ * usage: BatchGrader [-threads n] [-out dir] [-solutions] [-report file] file.adk...
+ * </pre>
+ * 
+ * The report lists every line that is not a valid puzzle with a unique solution followed by a
+ * summary. With <code>-out</code> an annotated copy of every input file is written into the
+ * specified directory; each puzzle is preceded by a comment with its status, effort and grade and
+ * puzzles with a unique solution get it as fourth field. <code>-solutions</code> omits the
+ * comments, which turns the copy into a puzzle file with precomputed solutions.
+ */
+public class BatchGrader {
+	private static final int LINES_PER_THREAD = 64;
+
+	enum Status {
+		UNIQUE, NONE, MULTIPLE, INVALID, ERROR
+	}
+
+	private final int threads;
+	private final File outDir;
+	private final boolean annotate;
+	private final PrintWriter report;
+
+	private final long[] statusCounts = new long[Status.values().length];
+	private final long[] difficultyCounts = new long[Difficulty.values().length];
+	private long puzzles;
+	private long totalEffort;
+	private long maxEffort;
+
+	public BatchGrader(int threads, File outDir, boolean annotate, PrintWriter report) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+
+		this.threads = threads;
+		this.outDir = outDir;
+		this.annotate = annotate;
+		this.report = report;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		File outDir = null;
+		boolean annotate = true;
+		File reportFile = null;
+		List<File> files = new ArrayList<File>();
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads") && i + 1 < args.length)
+				threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-out") && i + 1 < args.length)
+				outDir = new File(args[++i]);
+			else if (args[i].equals("-solutions"))
+				annotate = false;
+			else if (args[i].equals("-report") && i + 1 < args.length)
+				reportFile = new File(args[++i]);
+			else if (args[i].startsWith("-"))
+				usage();
+			else
+				files.add(new File(args[i]));
+		}
+
+		if (files.isEmpty())
+			usage();
+
+		if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs())
+			throw new IOException("Cannot create " + outDir);
+
+		PrintWriter report = reportFile == null ? new PrintWriter(new OutputStreamWriter(System.out))
+				: new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+						reportFile), "US-ASCII")));
+		try {
+			new BatchGrader(threads, outDir, annotate, report).run(files);
+		}
+		finally {
+			report.close();
+		}
+	}
+
+	private static void usage() {
+		System.err.println("usage: BatchGrader [-threads n] [-out dir] [-solutions] [-report file] "
+				+ "file.adk...");
+		System.exit(1);
+	}
+
+	public void run(List<File> files) throws IOException, InterruptedException {
+		final long start = System.currentTimeMillis();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		BlockingQueue<Future<Entry>> pending = new ArrayBlockingQueue<Future<Entry>>(threads
+				* LINES_PER_THREAD);
+
+		ResultWriter writer = new ResultWriter(pending);
+		Thread writerThread = new Thread(writer, "BatchGrader writer");
+		writerThread.start();
+
+		try {
+			for (File file : files)
+				read(file, executor, pending);
+		}
+		finally {
+			pending.put(done(Entry.END));
+			writerThread.join();
+			executor.shutdownNow();
+		}
+
+		if (writer.failure != null)
+			throw new IOException("Writing results failed", writer.failure);
+
+		final long millis = Math.max(1, System.currentTimeMillis() - start);
+		printSummary(millis);
+	}
+
+	private void read(File file, ExecutorService executor, BlockingQueue<Future<Entry>> pending)
+			throws IOException, InterruptedException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+				"US-ASCII"));
+		try {
+			pending.put(done(Entry.startOfFile(file)));
+
+			int lineNumber = 0;
+			while (true) {
+				String line = reader.readLine();
+				if (line == null)
+					break;
+
+				lineNumber++;
+
+				if (line.length() == 0 || line.startsWith("#"))
+					pending.put(done(Entry.passThrough(line)));
+				else
+					pending.put(executor.submit(new GradeTask(file, lineNumber, line)));
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private static Future<Entry> done(final Entry entry) {
+		FutureTask<Entry> future = new FutureTask<Entry>(new Callable<Entry>() {
+			public Entry call() {
+				return entry;
+			}
+		});
+		future.run();
+		return future;
+	}
+
+	private void count(Entry entry) {
+		statusCounts[entry.status.ordinal()]++;
+
+		if (entry.status == Status.UNIQUE)
+			difficultyCounts[entry.grade.getDifficulty().ordinal()]++;
+		else
+			report.println(entry.file + ":" + entry.lineNumber + ": " + describe(entry));
+
+		if (entry.status == Status.INVALID || entry.status == Status.ERROR)
+			return;
+
+		puzzles++;
+		totalEffort += entry.effort;
+		maxEffort = Math.max(maxEffort, entry.effort);
+	}
+
+	private void printSummary(long millis) {
+		final long lines = puzzles + statusCounts[Status.INVALID.ordinal()]
+				+ statusCounts[Status.ERROR.ordinal()];
+
+		report.println();
+		report.println("puzzles:  " + lines);
+		for (Status status : Status.values())
+			report.println(pad(status.name().toLowerCase() + ":") + statusCounts[status.ordinal()]);
+
+		report.println();
+		for (Difficulty difficulty : Difficulty.values())
+			report.println(pad(difficulty.name().toLowerCase() + ":")
+					+ difficultyCounts[difficulty.ordinal()]);
+
+		report.println();
+		report.println("effort:   " + (puzzles == 0 ? 0 : totalEffort / puzzles) + " average, "
+				+ maxEffort + " max");
+		report.println("time:     " + millis + " ms, " + lines * 1000 / millis + " lines/s, "
+				+ threads + " threads");
+	}
+
+	private static String pad(String label) {
+		StringBuilder sb = new StringBuilder(label);
+		while (sb.length() < 10)
+			sb.append(' ');
+		return sb.toString();
+	}
+
+	private static String describe(Entry entry) {
+		switch (entry.status) {
+			case INVALID:
+				return "invalid" + (entry.message == null ? "" : " (" + entry.message + ")");
+			case ERROR:
+				return "grading failed (" + entry.message + ")";
+			case NONE:
+				return "no solution, effort " + entry.effort;
+			case MULTIPLE:
+				return "multiple solutions, effort " + entry.effort;
+			default:
+				return "unique, effort " + entry.effort + ", " + entry.grade;
+		}
+	}
+
+	private static String encode(int[] values, int size) {
+		StringBuilder sb = new StringBuilder(size * size);
+		for (int i = 0; i < size * size; i++)
+			sb.append(PuzzleEncoder.encodeValue(values[i]));
+		return sb.toString();
+	}
+
+	// replaces or adds the fourth field of a puzzle line
+	private static String withSolution(String line, String solution) {
+		String[] fields = line.split("\\|", -1);
+
+		StringBuilder sb = new StringBuilder(line.length() + solution.length() + 3);
+		for (int i = 0; i < 3; i++) {
+			if (i < fields.length)
+				sb.append(fields[i]);
+			sb.append('|');
+		}
+		return sb.append(solution).toString();
+	}
+
+	private static final class Entry {
+		static final Entry END = new Entry(null, 0, null);
+
+		final File file;
+		final int lineNumber;
+		final String line;
+
+		Status status;
+		String message;
+		long effort;
+		Grade grade;
+		String solution;
+
+		Entry(File file, int lineNumber, String line) {
+			this.file = file;
+			this.lineNumber = lineNumber;
+			this.line = line;
+		}
+
+		static Entry startOfFile(File file) {
+			return new Entry(file, 0, null);
+		}
+
+		static Entry passThrough(String line) {
+			return new Entry(null, 0, line);
+		}
+
+		boolean isPuzzle() {
+			return file != null && line != null;
+		}
+	}
+
+	/**
+	 * Per thread solver state.
+	 */
+	private static final class Graders {
+		final DlxPuzzleSolver solver = new DlxPuzzleSolver();
+		final LogicalSolver logicalSolver = new LogicalSolver();
+		BufferSolutionReporter reporter;
+
+		BufferSolutionReporter getReporter(int size) {
+			if (reporter == null || reporter.getBuffer().length != size * size)
+				reporter = new BufferSolutionReporter(new int[size * size], 2);
+
+			reporter.reset();
+			return reporter;
+		}
+	}
+
+	private static final ThreadLocal<Graders> GRADERS = new ThreadLocal<Graders>() {
+		@Override
+		protected Graders initialValue() {
+			return new Graders();
+		}
+	};
+
+	private static final class GradeTask implements Callable<Entry> {
+		private final Entry entry;
+
+		public GradeTask(File file, int lineNumber, String line) {
+			this.entry = new Entry(file, lineNumber, line);
+		}
+
+		public Entry call() {
+			Puzzle puzzle;
+			try {
+				puzzle = PuzzleDecoder.decode(entry.line);
+			}
+			catch (RuntimeException e) {
+				entry.status = Status.INVALID;
+				entry.message = e.getMessage();
+				return entry;
+			}
+
+			// a failure must not reach the writer, which would stop draining the queue
+			try {
+				grade(puzzle);
+			}
+			catch (RuntimeException e) {
+				entry.status = Status.ERROR;
+				entry.message = e.toString();
+			}
+
+			return entry;
+		}
+
+		private void grade(Puzzle puzzle) {
+			Graders graders = GRADERS.get();
+
+			final int size = puzzle.getSize();
+			BufferSolutionReporter reporter = graders.getReporter(size);
+			graders.solver.solve(puzzle, reporter);
+			entry.effort = graders.solver.getNumberOfUpdates();
+
+			if (reporter.hasUniqueSolution()) {
+				entry.status = Status.UNIQUE;
+				entry.grade = graders.logicalSolver.grade(puzzle);
+				entry.solution = encode(reporter.getBuffer(), size);
+			}
+			else if (reporter.hasSolution()) {
+				entry.status = Status.MULTIPLE;
+			}
+			else {
+				entry.status = Status.NONE;
+			}
+		}
+	}
+
+	private final class ResultWriter implements Runnable {
+		private final BlockingQueue<Future<Entry>> pending;
+		private Writer out;
+		private volatile Exception failure;
+
+		public ResultWriter(BlockingQueue<Future<Entry>> pending) {
+			this.pending = pending;
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					Entry entry;
+					try {
+						entry = pending.take().get();
+					}
+					catch (ExecutionException e) {
+						// keep draining so that the reader does not block on a full queue
+						if (failure == null)
+							failure = e;
+						continue;
+					}
+
+					if (entry == Entry.END)
+						break;
+
+					if (failure == null)
+						write(entry);
+				}
+			}
+			catch (InterruptedException e) {
+				failure = e;
+			}
+			finally {
+				close();
+			}
+		}
+
+		private void write(Entry entry) {
+			try {
+				if (entry.file != null && entry.line == null)
+					open(entry.file);
+				else if (entry.isPuzzle())
+					writePuzzle(entry);
+				else if (out != null)
+					writeLine(entry.line);
+			}
+			catch (IOException e) {
+				failure = e;
+			}
+		}
+
+		private void writePuzzle(Entry entry) throws IOException {
+			count(entry);
+
+			if (out == null)
+				return;
+
+			if (annotate)
+				writeLine("# " + describe(entry));
+
+			if (entry.status == Status.UNIQUE)
+				writeLine(withSolution(entry.line, entry.solution));
+			else
+				writeLine(entry.line);
+		}
+
+		private void open(File file) throws IOException {
+			close();
+
+			if (outDir != null)
+				out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(outDir,
+						file.getName())), "US-ASCII"));
+		}
+
+		private void writeLine(String line) throws IOException {
+			out.write(line);
+			out.write('\n');
+		}
+
+		private void close() {
+			if (out == null)
+				return;
+
+			try {
+				out.close();
+			}
+			catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+
+			out = null;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
+import com.googlecode.andoku.transfer.PuzzleDecoder;
+import com.googlecode.andoku.transfer.PuzzlePackWriter;
+
+/**
+ * Converts <code>.adk</code> puzzle files into a single binary puzzle pack.
+ * 
+ * <pre>
+ * usage: PackConverter [-difficulty 1-5] [-nosolutions] out.adp file.adk...
+ * </pre>
+ * 
+ * The difficulty of the puzzles in a file is taken from the <code>-difficulty</code> option or
+ * else from a file name ending in <code>_1</code> to <code>_5</code> like the bundled assets; it
+ * is unknown otherwise. Solutions in the fourth field are copied unless <code>-nosolutions</code>
+ * is given. All puzzles have to be of the same size.
+ */
+public class PackConverter {
+	private final Difficulty difficulty;
+	private final boolean solutions;
+
+	private PuzzlePackWriter writer;
+	private int count;
+
+	public PackConverter(Difficulty difficulty, boolean solutions) {
+		this.difficulty = difficulty;
+		this.solutions = solutions;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Difficulty difficulty = null;
+		boolean solutions = true;
+		List<File> files = new ArrayList<File>();
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-difficulty") && i + 1 < args.length)
+				difficulty = parseDifficulty(args[++i]);
+			else if (args[i].equals("-nosolutions"))
+				solutions = false;
+			else if (args[i].startsWith("-"))
+				usage();
+			else
+				files.add(new File(args[i]));
+		}
+
+		if (files.size() < 2)
+			usage();
+
+		File outFile = files.remove(0);
+
+		long start = System.currentTimeMillis();
+		int count = new PackConverter(difficulty, solutions).convert(files, outFile);
+		System.out.println(count + " puzzles written to " + outFile + " in "
+				+ (System.currentTimeMillis() - start) + " ms");
+	}
+
+	private static void usage() {
+		System.err.println("usage: PackConverter [-difficulty 1-5] [-nosolutions] out.adp "
+				+ "file.adk...");
+		System.exit(1);
+	}
+
+	public int convert(List<File> files, File outFile) throws IOException {
+		writer = null;
+		count = 0;
+
+		try {
+			for (File file : files)
+				convert(file, outFile);
+		}
+		finally {
+			if (writer != null)
+				writer.close();
+		}
+
+		if (writer == null)
+			throw new IOException("No puzzles found");
+
+		return count;
+	}
+
+	private void convert(File file, File outFile) throws IOException {
+		Difficulty fileDifficulty = difficulty != null ? difficulty : difficultyOf(file);
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+				"US-ASCII"));
+		try {
+			int lineNumber = 0;
+			while (true) {
+				String line = reader.readLine();
+				if (line == null)
+					break;
+
+				lineNumber++;
+
+				if (line.length() == 0 || line.startsWith("#"))
+					continue;
+
+				Puzzle puzzle;
+				Solution solution;
+				try {
+					puzzle = PuzzleDecoder.decode(line);
+					solution = solutions ? PuzzleDecoder.decodeSolution(line) : null;
+				}
+				catch (IllegalArgumentException e) {
+					throw new IOException(file + ":" + lineNumber + ": invalid puzzle");
+				}
+
+				if (writer == null)
+					writer = new PuzzlePackWriter(outFile, puzzle.getSize(), solutions);
+
+				writer.add(puzzle, fileDifficulty, solution);
+				count++;
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private static Difficulty difficultyOf(File file) {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		if (dot != -1)
+			name = name.substring(0, dot);
+
+		if (name.length() < 2 || name.charAt(name.length() - 2) != '_')
+			return Difficulty.UNKNOWN;
+
+		try {
+			return parseDifficulty(name.substring(name.length() - 1));
+		}
+		catch (IllegalArgumentException e) {
+			return Difficulty.UNKNOWN;
+		}
+	}
+
+	private static Difficulty parseDifficulty(String value) {
+		if (value.length() != 1 || value.charAt(0) < '1' || value.charAt(0) > '5')
+			throw new IllegalArgumentException("Invalid difficulty: " + value);
+
+		return Difficulty.values()[value.charAt(0) - '1'];
+	}
+}
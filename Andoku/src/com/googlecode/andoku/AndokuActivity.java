@@ -70,6 +70,8 @@ import com.googlecode.andoku.model.Difficulty;
 import com.googlecode.andoku.model.Position;
 import com.googlecode.andoku.model.PuzzleType;
 import com.googlecode.andoku.model.ValueSet;
+import com.googlecode.andoku.solver.CancellationToken;
+import com.googlecode.andoku.solver.SolveResult;
 import com.googlecode.andoku.source.PuzzleHolder;
 import com.googlecode.andoku.source.PuzzleSource;
 import com.googlecode.andoku.source.PuzzleSourceIds;
@@ -98,6 +100,9 @@ public class AndokuActivity extends Activity
 
 	private static final int REQUEST_CODE_SETTINGS = 0;
 
+	// give up computing the solution of an imported puzzle after this many milliseconds
+	private static final long COMPUTE_SOLUTION_TIMEOUT = 10000;
+
 	private static final int GAME_STATE_NEW_ACTIVITY_STARTED = 0;
 	private static final int GAME_STATE_ACTIVITY_STATE_RESTORED = 1;
 	private static final int GAME_STATE_READY = 2;
@@ -874,7 +879,10 @@ public class AndokuActivity extends Activity
 
 	private AndokuPuzzle createAndokuPuzzle(int number) {
 		PuzzleHolder holder = source.load(number);
-		return new AndokuPuzzle(holder.getName(), holder.getPuzzle(), holder.getDifficulty());
+		AndokuPuzzle andokuPuzzle = new AndokuPuzzle(holder.getName(), holder.getPuzzle(), holder
+				.getDifficulty(), holder.getSolution());
+		andokuPuzzle.setSolutionCache(((Application) getApplication()).getSolutionCache());
+		return andokuPuzzle;
 	}
 
 	private String getPuzzleName() {
@@ -1036,7 +1044,8 @@ public class AndokuActivity extends Activity
 	private String getStatisticsDetails() {
 		GameStatistics stats = db.getStatistics(source.getSourceId());
 		return getResources().getString(R.string.message_statistics_details, stats.numGamesSolved,
-				DateUtil.formatTime(stats.getAverageTime()), DateUtil.formatTime(stats.minTime));
+				DateUtil.formatTime(stats.getAverageTime()), DateUtil.formatTime(stats.minTime),
+				DateUtil.formatTime(stats.getMedianTime()));
 	}
 
 	private void updateKeypadHighlighing() {
@@ -1168,7 +1177,9 @@ public class AndokuActivity extends Activity
 		}
 	}
 
-	private final class ComputeSolutionAndCheckPuzzleTask extends AsyncTask<Void, Integer, Boolean> {
+	private final class ComputeSolutionAndCheckPuzzleTask extends
+			AsyncTask<Void, Integer, SolveResult> {
+		private final CancellationToken token = new CancellationToken();
 		private boolean timerRunning;
 		private ProgressDialog progressDialog;
 
@@ -1178,25 +1189,36 @@ public class AndokuActivity extends Activity
 			timer.stop();
 
 			String message = getResources().getString(R.string.message_computing_solution);
-			progressDialog = ProgressDialog.show(AndokuActivity.this, "", message, true);
+			progressDialog = ProgressDialog.show(AndokuActivity.this, "", message, true, true,
+					new DialogInterface.OnCancelListener() {
+						public void onCancel(DialogInterface dialog) {
+							token.cancel();
+						}
+					});
 		}
 
 		@Override
-		protected Boolean doInBackground(Void... params) {
-			return puzzle.computeSolution();
+		protected SolveResult doInBackground(Void... params) {
+			long deadline = System.currentTimeMillis() + COMPUTE_SOLUTION_TIMEOUT;
+			return puzzle.computeSolution(deadline, token);
 		}
 
 		@Override
-		protected void onPostExecute(Boolean solved) {
+		protected void onPostExecute(SolveResult result) {
 			progressDialog.dismiss();
 
 			if (timerRunning)
 				timer.start();
 
-			if (solved)
+			if (result == SolveResult.CANCELLED)
+				return;
+
+			if (puzzle.hasSolution())
 				checkPuzzle(true);
-			else
+			else if (result == SolveResult.COMPLETED)
 				showWarning(R.string.warn_invalid_puzzle);
+			else
+				showWarning(R.string.warn_solution_timeout);
 		}
 	}
 }
@@ -54,6 +54,7 @@ public class AndokuContentProvider extends ContentProvider {
 	public static final String KEY_DIFFICULTY = "difficulty";
 	public static final String KEY_AREAS = "areas";
 	public static final String KEY_EXTRA_REGIONS = "extraRegions";
+	public static final String KEY_SOLUTION = "solution";
 
 	private static final int CODE_FOLDERS = 1;
 	private static final int CODE_FOLDERS_ID = 2;
@@ -338,6 +339,15 @@ public class AndokuContentProvider extends ContentProvider {
 				throw new InvalidParameterException("Invalid extra regions: " + extraRegions);
 		}
 
+		String solution = values.getAsString(KEY_SOLUTION);
+		if (solution != null) {
+			solution = solution.trim();
+			if (builder.isValidSolution(solution))
+				builder.setSolution(solution);
+			else
+				throw new InvalidParameterException("Invalid solution: " + solution);
+		}
+
 		Integer difficulty = values.getAsInteger(KEY_DIFFICULTY);
 		if (difficulty != null) {
 			if (builder.isValidDifficulty(difficulty))
@@ -25,11 +25,18 @@ import android.content.SharedPreferences.Editor;
 import android.preference.PreferenceManager;
 import android.util.DisplayMetrics;
 import android.util.Log;
+
+import com.googlecode.andoku.db.AndokuDatabase;
+import com.googlecode.andoku.model.SolutionCache;
 import com.googlecode.andokusquid.R;
 
 public class Application extends android.app.Application {
 	private static final String TAG = Application.class.getName();
 
+	private static final int SOLUTION_CACHE_CAPACITY = 64;
+
+	private SolutionCache solutionCache;
+
 	@Override
 	public void onCreate() {
 		super.onCreate();
@@ -39,6 +46,16 @@ public class Application extends android.app.Application {
 		PreferenceManager.setDefaultValues(this, R.xml.settings, true);
 	}
 
+	/**
+	 * Returns the solution cache shared by all activities. Its persistent tier is the database.
+	 */
+	public synchronized SolutionCache getSolutionCache() {
+		if (solutionCache == null)
+			solutionCache = new SolutionCache(SOLUTION_CACHE_CAPACITY, new AndokuDatabase(this));
+
+		return solutionCache;
+	}
+
 	private void provideDefaultValueForFullscreenMode() {
 		SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(this);
 		if (preferences.contains(Settings.KEY_FULLSCREEN_MODE)) {
@@ -35,13 +35,14 @@ import com.googlecode.andoku.Constants;
 import com.googlecode.andoku.TickTimer;
 import com.googlecode.andoku.model.AndokuPuzzle;
 import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.SolutionCache;
 import com.googlecode.andoku.source.PuzzleSourceIds;
 
-public class AndokuDatabase {
+public class AndokuDatabase implements SolutionCache.Store {
 	private static final String TAG = AndokuDatabase.class.getName();
 
 	public static final String DATABASE_NAME = "save_games.db";
-	private static final int DATABASE_VERSION = 2;
+	private static final int DATABASE_VERSION = 7;
 
 	public static final int ROOT_FOLDER_ID = -1;
 
@@ -66,10 +67,15 @@ public class AndokuDatabase {
 	public static final String COL_CLUES = "clues"; //           "...6.12........3......"
 	public static final String COL_AREAS = "areas"; //           "11122223311122222341.."|""
 	public static final String COL_EXTRA_REGIONS = "extra"; //   "X"|"H"|"P"|"C"|""
+	public static final String COL_SOLUTION = "solution"; //     "295143768..."|""
+	public static final String COL_ORDINAL = "ordinal"; //       0-based, dense within a folder
+
+	private static final String INDEX_PUZZLES_FOLDER_ORDINAL = "puzzles_folder_ordinal";
+	private static final String NEXT_ORDINAL = "IFNULL(MAX(" + COL_ORDINAL + ") + 1, 0)";
 
 	private SQLiteStatement insertPuzzleStatement;
 
-	private static final String TABLE_GAMES = "games";
+	static final String TABLE_GAMES = "games";
 	public static final String COL_SOURCE = "source";
 	public static final String COL_NUMBER = "number";
 	public static final String COL_TYPE = "type";
@@ -79,6 +85,25 @@ public class AndokuDatabase {
 	public static final String COL_CREATED_DATE = "created";
 	public static final String COL_MODIFIED_DATE = "modified";
 
+	// saveGame(), loadGame(), delete() and findGamesBySource(), which it covers
+	static final String INDEX_GAMES_SOURCE_NUMBER = "games_source_number";
+	// covers the fastest time and rebuild queries of the statistics
+	static final String INDEX_GAMES_SOURCE_SOLVED = "games_source_solved";
+	// covers findGamesInProgress()
+	static final String INDEX_GAMES_SOLVED_MODIFIED = "games_solved_modified";
+
+	// solutions by canonical form; COL_SOLUTION holds the canonical solution
+	private static final String TABLE_SOLUTIONS = "solutions";
+	public static final String COL_HASH = "hash"; //               64 bit hash of the fingerprint
+	public static final String COL_FINGERPRINT = "fingerprint"; // canonical puzzle
+
+	// solve time statistics by source, maintained by saveGame() and the delete methods
+	private static final String TABLE_STATISTICS = "statistics";
+	public static final String COL_SOLVED_COUNT = "solved_count";
+	public static final String COL_TIME_SUM = "time_sum";
+	public static final String COL_TIME_MIN = "time_min";
+	public static final String COL_TIME_QUANTILES = "time_quantiles"; // QuantileSketch
+
 	// indexes for findAllGames() and findGamesInProgress();
 	public static final int IDX_GAME_ID = 0;
 	public static final int IDX_GAME_SOURCE = 1;
@@ -92,6 +117,8 @@ public class AndokuDatabase {
 	public static final int IDX_GAME_BY_SOURCE_NUMBER = 0;
 	public static final int IDX_GAME_BY_SOURCE_SOLVED = 1;
 
+	private static final long NO_TIME = -1;
+
 	private DatabaseHelper openHelper;
 
 	public AndokuDatabase(Context context) {
@@ -110,6 +137,7 @@ public class AndokuDatabase {
 		db.delete(TABLE_FOLDERS, null, null);
 		db.delete(TABLE_PUZZLES, null, null);
 		db.delete(TABLE_GAMES, null, null);
+		db.delete(TABLE_STATISTICS, null, null);
 	}
 
 	public static boolean isValidFolderName(String folderName) {
@@ -290,19 +318,24 @@ public class AndokuDatabase {
 		return !hasSubFolders(db, folderId) && !hasPuzzles(db, folderId);
 	}
 
-	public long insertPuzzle(long folderId, PuzzleInfo puzzleInfo) {
+	// synchronized because the compiled statement is shared between binder threads
+	public synchronized long insertPuzzle(long folderId, PuzzleInfo puzzleInfo) {
 		if (Constants.LOG_V)
 			Log.v(TAG, "insertPuzzle(" + folderId + "," + puzzleInfo + ")");
 
 		// if (!folderExists(folderId))
 		//	  throw new IllegalArgumentException("No such folder: " + folderId);
 
+		// the ordinal is computed by the insert itself so that concurrent inserts into the
+		// same folder cannot be assigned the same ordinal
 		if (insertPuzzleStatement == null) {
 			SQLiteDatabase db = openHelper.getWritableDatabase();
 			insertPuzzleStatement = db.compileStatement("INSERT INTO " + TABLE_PUZZLES + "("
-					+ COL_FOLDER + ", " + COL_NAME + ", " + COL_DIFFICULTY + ", " + COL_SIZE + ", "
-					+ COL_CLUES + ", " + COL_AREAS + ", " + COL_EXTRA_REGIONS
-					+ ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+					+ COL_FOLDER + ", " + COL_ORDINAL + ", " + COL_NAME + ", " + COL_DIFFICULTY
+					+ ", " + COL_SIZE + ", " + COL_CLUES + ", " + COL_AREAS + ", "
+					+ COL_EXTRA_REGIONS + ", " + COL_SOLUTION + ") SELECT ?, " + NEXT_ORDINAL
+					+ ", ?, ?, ?, ?, ?, ?, ? FROM " + TABLE_PUZZLES + " WHERE " + COL_FOLDER
+					+ "=?");
 		}
 
 		insertPuzzleStatement.bindLong(1, folderId);
@@ -312,6 +345,8 @@ public class AndokuDatabase {
 		insertPuzzleStatement.bindString(5, puzzleInfo.getClues());
 		insertPuzzleStatement.bindString(6, puzzleInfo.getAreas());
 		insertPuzzleStatement.bindString(7, puzzleInfo.getExtraRegions());
+		insertPuzzleStatement.bindString(8, puzzleInfo.getSolution());
+		insertPuzzleStatement.bindLong(9, folderId);
 
 		long insertedRowId = insertPuzzleStatement.executeInsert();
 		if (insertedRowId == -1)
@@ -326,9 +361,34 @@ public class AndokuDatabase {
 
 		SQLiteDatabase db = openHelper.getWritableDatabase();
 
-		String whereClause = COL_ID + "=?";
-		String[] whereArgs = { String.valueOf(puzzleId) };
-		db.delete(TABLE_PUZZLES, whereClause, whereArgs);
+		db.beginTransaction();
+		try {
+			String[] columns = { COL_FOLDER, COL_ORDINAL };
+			String selection = COL_ID + "=?";
+			String[] selectionArgs = { String.valueOf(puzzleId) };
+			Cursor cursor = db.query(TABLE_PUZZLES, columns, selection, selectionArgs, null, null,
+					null);
+
+			try {
+				if (!cursor.moveToFirst())
+					return;
+
+				db.delete(TABLE_PUZZLES, selection, selectionArgs);
+
+				// close the gap so that ordinals stay dense
+				db.execSQL("UPDATE " + TABLE_PUZZLES + " SET " + COL_ORDINAL + "=" + COL_ORDINAL
+						+ "-1 WHERE " + COL_FOLDER + "=? AND " + COL_ORDINAL + ">?", new Object[] {
+						cursor.getLong(0), cursor.getLong(1) });
+			}
+			finally {
+				cursor.close();
+			}
+
+			db.setTransactionSuccessful();
+		}
+		finally {
+			db.endTransaction();
+		}
 	}
 
 	public int getNumberOfPuzzles(long folderId) {
@@ -337,7 +397,8 @@ public class AndokuDatabase {
 
 		SQLiteDatabase db = openHelper.getReadableDatabase();
 
-		Cursor cursor = db.query(TABLE_PUZZLES, new String[] { "COUNT(*)" }, COL_FOLDER + "=?",
+		// ordinals are dense, so this is an index lookup instead of a count
+		Cursor cursor = db.query(TABLE_PUZZLES, new String[] { NEXT_ORDINAL }, COL_FOLDER + "=?",
 				new String[] { String.valueOf(folderId) }, null, null, null);
 		try {
 			cursor.moveToFirst();
@@ -355,40 +416,23 @@ public class AndokuDatabase {
 
 		SQLiteDatabase db = openHelper.getReadableDatabase();
 
-		String[] columns = { COL_ID };
-		String selection = COL_FOLDER + "=?";
-		String[] selectionArgs = { String.valueOf(folderId) };
+		String[] columns = { COL_ORDINAL };
+		String selection = COL_ID + "=? AND " + COL_FOLDER + "=?";
+		String[] selectionArgs = { String.valueOf(puzzleId), String.valueOf(folderId) };
 
-		Cursor cursor = db.query(TABLE_PUZZLES, columns, selection, selectionArgs, null, null, null,
-				null);
+		Cursor cursor = db.query(TABLE_PUZZLES, columns, selection, selectionArgs, null, null, null);
 
 		try {
-			int total = cursor.getCount();
-			return getPuzzleNumber(cursor, puzzleId, 0, total - 1);
+			if (cursor.moveToFirst())
+				return cursor.getInt(0);
+			else
+				return -1;
 		}
 		finally {
 			cursor.close();
 		}
 	}
 
-	private int getPuzzleNumber(Cursor cursor, long puzzleId, int fromNumber, int toNumber) {
-		if (fromNumber > toNumber)
-			return -1;
-
-		int candidate = (fromNumber + toNumber) / 2;
-		if (!cursor.moveToPosition(candidate))
-			throw new IllegalStateException();
-
-		int id = cursor.getInt(0);
-		if (id == puzzleId)
-			return candidate;
-
-		if (id < puzzleId)
-			return getPuzzleNumber(cursor, puzzleId, candidate + 1, toNumber);
-		else
-			return getPuzzleNumber(cursor, puzzleId, fromNumber, candidate - 1);
-	}
-
 	public PuzzleInfo loadPuzzle(long folderId, int number) {
 		if (Constants.LOG_V)
 			Log.v(TAG, "loadPuzzle(" + folderId + "," + number + ")");
@@ -396,13 +440,11 @@ public class AndokuDatabase {
 		SQLiteDatabase db = openHelper.getReadableDatabase();
 
 		String[] columns = { COL_NAME, COL_DIFFICULTY, COL_SIZE, COL_CLUES, COL_AREAS,
-				COL_EXTRA_REGIONS };
-		String selection = COL_FOLDER + "=?";
-		String[] selectionArgs = { String.valueOf(folderId) };
-		String limit = number + ",1";
+				COL_EXTRA_REGIONS, COL_SOLUTION };
+		String selection = COL_FOLDER + "=? AND " + COL_ORDINAL + "=?";
+		String[] selectionArgs = { String.valueOf(folderId), String.valueOf(number) };
 
-		Cursor cursor = db.query(TABLE_PUZZLES, columns, selection, selectionArgs, null, null, null,
-				limit);
+		Cursor cursor = db.query(TABLE_PUZZLES, columns, selection, selectionArgs, null, null, null);
 		try {
 			if (cursor.moveToNext()) {
 				PuzzleInfo.Builder builder = new PuzzleInfo.Builder(cursor.getString(3));
@@ -410,6 +452,7 @@ public class AndokuDatabase {
 				builder.setDifficulty(Difficulty.values()[cursor.getInt(1)]);
 				builder.setAreas(cursor.getString(4));
 				builder.setExtraRegions(cursor.getString(5));
+				builder.setSolution(cursor.getString(6));
 				return builder.build();
 			}
 			else {
@@ -431,22 +474,29 @@ public class AndokuDatabase {
 
 		db.beginTransaction();
 		try {
-			String[] columns = { COL_ID };
+			String[] columns = { COL_ID, COL_SOLVED, COL_TIMER };
 			String selection = COL_SOURCE + "=? AND " + COL_NUMBER + "=?";
 			String[] selectionArgs = { puzzleId.puzzleSourceId, String.valueOf(puzzleId.number) };
 			Cursor cursor = db.query(TABLE_GAMES, columns, selection, selectionArgs, null, null, null);
 
 			long rowId = -1;
+			boolean wasSolved = false;
+			long oldTime = 0;
 			if (cursor.moveToFirst()) {
 				rowId = cursor.getLong(0);
+				wasSolved = cursor.getInt(1) != 0;
+				oldTime = cursor.getLong(2);
 			}
 
 			cursor.close();
 
+			final boolean solved = puzzle.isSolved();
+			final long time = timer.getTime();
+
 			ContentValues values = new ContentValues();
 			values.put(COL_PUZZLE, puzzle.saveToMemento());
-			values.put(COL_TIMER, timer.getTime());
-			values.put(COL_SOLVED, puzzle.isSolved());
+			values.put(COL_TIMER, time);
+			values.put(COL_SOLVED, solved);
 			values.put(COL_MODIFIED_DATE, now);
 
 			if (rowId == -1) {
@@ -465,6 +515,11 @@ public class AndokuDatabase {
 					return;
 			}
 
+			// saving a solved game again does not change the statistics
+			if (wasSolved != solved || wasSolved && oldTime != time)
+				updateStatistics(db, puzzleId.puzzleSourceId, wasSolved ? oldTime : NO_TIME,
+						solved ? time : NO_TIME);
+
 			db.setTransactionSuccessful();
 		}
 		finally {
@@ -509,9 +564,29 @@ public class AndokuDatabase {
 
 		SQLiteDatabase db = openHelper.getWritableDatabase();
 
-		String whereClause = COL_SOURCE + "=? AND " + COL_NUMBER + "=?";
-		String[] whereArgs = { puzzleId.puzzleSourceId, String.valueOf(puzzleId.number) };
-		db.delete(TABLE_GAMES, whereClause, whereArgs);
+		db.beginTransaction();
+		try {
+			String[] columns = { COL_SOLVED, COL_TIMER };
+			String selection = COL_SOURCE + "=? AND " + COL_NUMBER + "=?";
+			String[] selectionArgs = { puzzleId.puzzleSourceId, String.valueOf(puzzleId.number) };
+			Cursor cursor = db.query(TABLE_GAMES, columns, selection, selectionArgs, null, null, null);
+
+			long solvedTime = NO_TIME;
+			if (cursor.moveToFirst() && cursor.getInt(0) != 0)
+				solvedTime = cursor.getLong(1);
+
+			cursor.close();
+
+			db.delete(TABLE_GAMES, selection, selectionArgs);
+
+			if (solvedTime != NO_TIME)
+				updateStatistics(db, puzzleId.puzzleSourceId, solvedTime, NO_TIME);
+
+			db.setTransactionSuccessful();
+		}
+		finally {
+			db.endTransaction();
+		}
 	}
 
 	public void deleteAll(String sourceId) {
@@ -520,9 +595,18 @@ public class AndokuDatabase {
 
 		SQLiteDatabase db = openHelper.getWritableDatabase();
 
-		String whereClause = COL_SOURCE + "=?";
-		String[] whereArgs = { sourceId };
-		db.delete(TABLE_GAMES, whereClause, whereArgs);
+		db.beginTransaction();
+		try {
+			String whereClause = COL_SOURCE + "=?";
+			String[] whereArgs = { sourceId };
+			db.delete(TABLE_GAMES, whereClause, whereArgs);
+			db.delete(TABLE_STATISTICS, whereClause, whereArgs);
+
+			db.setTransactionSuccessful();
+		}
+		finally {
+			db.endTransaction();
+		}
 	}
 
 	public Cursor findAllGames() {
@@ -578,18 +662,7 @@ public class AndokuDatabase {
 
 		SQLiteDatabase db = openHelper.getReadableDatabase();
 
-		String[] columns = { "COUNT(*)", "SUM(timer)", "MIN(timer)", "MAX(timer)" };
-		String selection = COL_SOURCE + "=? AND " + COL_SOLVED + "=1";
-		String[] selectionArgs = new String[] { puzzleSourceId };
-		Cursor cursor = db.query(TABLE_GAMES, columns, selection, selectionArgs, null, null, null);
-		try {
-			cursor.moveToFirst();
-
-			return new GameStatistics(cursor.getInt(0), cursor.getLong(1), cursor.getLong(2));
-		}
-		finally {
-			cursor.close();
-		}
+		return loadStatistics(db, puzzleSourceId);
 	}
 
 	public PuzzleId puzzleIdByRowId(long rowId) {
@@ -616,10 +689,53 @@ public class AndokuDatabase {
 		}
 	}
 
-	public void close() {
+	public String loadSolution(long hash, String fingerprint) {
+		if (Constants.LOG_V)
+			Log.v(TAG, "loadSolution(" + hash + ")");
+
+		SQLiteDatabase db = openHelper.getReadableDatabase();
+
+		String[] columns = { COL_SOLUTION };
+		String selection = COL_HASH + "=? AND " + COL_FINGERPRINT + "=?";
+		String[] selectionArgs = { String.valueOf(hash), fingerprint };
+		Cursor cursor = db.query(TABLE_SOLUTIONS, columns, selection, selectionArgs, null, null,
+				null);
+		try {
+			if (cursor.moveToFirst())
+				return cursor.getString(0);
+			else
+				return null;
+		}
+		finally {
+			cursor.close();
+		}
+	}
+
+	public void saveSolution(long hash, String fingerprint, String solution) {
+		if (Constants.LOG_V)
+			Log.v(TAG, "saveSolution(" + hash + ")");
+
+		SQLiteDatabase db = openHelper.getWritableDatabase();
+
+		ContentValues values = new ContentValues();
+		values.put(COL_HASH, hash);
+		values.put(COL_FINGERPRINT, fingerprint);
+		values.put(COL_SOLUTION, solution);
+
+		// a hash collision replaces the older entry
+		if (db.replace(TABLE_SOLUTIONS, null, values) == -1)
+			throw new SQLException("Could not save solution " + hash);
+	}
+
+	public synchronized void close() {
 		if (Constants.LOG_V)
 			Log.v(TAG, "close()");
 
+		if (insertPuzzleStatement != null) {
+			insertPuzzleStatement.close();
+			insertPuzzleStatement = null;
+		}
+
 		openHelper.close();
 	}
 
@@ -703,6 +819,7 @@ public class AndokuDatabase {
 		String whereClause = COL_SOURCE + "=?";
 		String[] whereArgs = { PuzzleSourceIds.forDbFolder(folderId) };
 		db.delete(TABLE_GAMES, whereClause, whereArgs);
+		db.delete(TABLE_STATISTICS, whereClause, whereArgs);
 	}
 
 	private void deleteFolder0(SQLiteDatabase db, long folderId) {
@@ -755,6 +872,122 @@ public class AndokuDatabase {
 		}
 	}
 
+	private static GameStatistics loadStatistics(SQLiteDatabase db, String sourceId) {
+		String[] columns = { COL_SOLVED_COUNT, COL_TIME_SUM, COL_TIME_MIN, COL_TIME_QUANTILES };
+		String selection = COL_SOURCE + "=?";
+		String[] selectionArgs = { sourceId };
+		Cursor cursor = db.query(TABLE_STATISTICS, columns, selection, selectionArgs, null, null,
+				null);
+		try {
+			if (!cursor.moveToFirst())
+				return new GameStatistics(0, 0, 0, new QuantileSketch());
+
+			QuantileSketch timeQuantiles = QuantileSketch.fromByteArray(cursor.getBlob(3));
+			return new GameStatistics(cursor.getInt(0), cursor.getLong(1), cursor.getLong(2),
+					timeQuantiles);
+		}
+		finally {
+			cursor.close();
+		}
+	}
+
+	// applies a change of the solved games of a source; call after the games table has changed
+	private static void updateStatistics(SQLiteDatabase db, String sourceId, long removedTime,
+			long addedTime) {
+		GameStatistics statistics = loadStatistics(db, sourceId);
+		int solvedCount = statistics.numGamesSolved;
+		long timeSum = statistics.sumTime;
+		long timeMin = statistics.minTime;
+		QuantileSketch timeQuantiles = statistics.getTimeQuantiles();
+
+		if (removedTime != NO_TIME) {
+			if (solvedCount == 0 || !timeQuantiles.remove(removedTime)) {
+				Log.w(TAG, "Statistics of " + sourceId + " out of sync; rebuilding");
+				rebuildStatistics(db, sourceId);
+				return;
+			}
+
+			solvedCount--;
+			timeSum -= removedTime;
+		}
+
+		if (addedTime != NO_TIME) {
+			timeMin = solvedCount == 0 ? addedTime : Math.min(timeMin, addedTime);
+			solvedCount++;
+			timeSum += addedTime;
+			timeQuantiles.add(addedTime);
+		}
+
+		// the fastest time is exact; look up the next one in the games index
+		if (removedTime != NO_TIME && removedTime <= timeMin && solvedCount > 0)
+			timeMin = queryMinTime(db, sourceId);
+
+		saveStatistics(db, sourceId, solvedCount, timeSum, timeMin, timeQuantiles);
+	}
+
+	private static long queryMinTime(SQLiteDatabase db, String sourceId) {
+		String[] columns = { "MIN(" + COL_TIMER + ")" };
+		String selection = COL_SOURCE + "=? AND " + COL_SOLVED + "=1";
+		String[] selectionArgs = { sourceId };
+		Cursor cursor = db.query(TABLE_GAMES, columns, selection, selectionArgs, null, null, null);
+		try {
+			cursor.moveToFirst();
+
+			return cursor.getLong(0);
+		}
+		finally {
+			cursor.close();
+		}
+	}
+
+	private static void rebuildStatistics(SQLiteDatabase db, String sourceId) {
+		int solvedCount = 0;
+		long timeSum = 0;
+		long timeMin = 0;
+		QuantileSketch timeQuantiles = new QuantileSketch();
+
+		String[] columns = { COL_TIMER };
+		String selection = COL_SOURCE + "=? AND " + COL_SOLVED + "=1";
+		String[] selectionArgs = { sourceId };
+		String orderBy = COL_TIMER;
+		Cursor cursor = db.query(TABLE_GAMES, columns, selection, selectionArgs, null, null,
+				orderBy);
+		try {
+			while (cursor.moveToNext()) {
+				long time = cursor.getLong(0);
+				if (solvedCount == 0)
+					timeMin = time;
+
+				solvedCount++;
+				timeSum += time;
+				timeQuantiles.add(time);
+			}
+		}
+		finally {
+			cursor.close();
+		}
+
+		saveStatistics(db, sourceId, solvedCount, timeSum, timeMin, timeQuantiles);
+	}
+
+	private static void saveStatistics(SQLiteDatabase db, String sourceId, int solvedCount,
+			long timeSum, long timeMin, QuantileSketch timeQuantiles) {
+		if (solvedCount == 0) {
+			db.delete(TABLE_STATISTICS, COL_SOURCE + "=?", new String[] { sourceId });
+			return;
+		}
+
+		ContentValues values = new ContentValues();
+		values.put(COL_SOURCE, sourceId);
+		values.put(COL_SOLVED_COUNT, solvedCount);
+		values.put(COL_TIME_SUM, timeSum);
+		values.put(COL_TIME_MIN, timeMin);
+		values.put(COL_TIME_QUANTILES, timeQuantiles.toByteArray());
+
+		if (db.replace(TABLE_STATISTICS, null, values) == -1)
+			throw new SQLException("Could not save statistics of " + sourceId);
+	}
+
 	/**
 	 * This class helps open, create, and upgrade the database file.
 	 */
@@ -772,12 +1005,60 @@ public class AndokuDatabase {
 			db.execSQL("CREATE TABLE " + TABLE_PUZZLES + " (" + COL_ID + " INTEGER PRIMARY KEY,"
 					+ COL_FOLDER + " INTEGER," + COL_NAME + " TEXT, " + COL_DIFFICULTY + " INTEGER, "
 					+ COL_SIZE + " INTEGER, " + COL_CLUES + " TEXT, " + COL_AREAS + " TEXT, "
-					+ COL_EXTRA_REGIONS + " TEXT);");
+					+ COL_EXTRA_REGIONS + " TEXT, " + COL_SOLUTION + " TEXT DEFAULT '', "
+					+ COL_ORDINAL + " INTEGER);");
+			createPuzzlesOrdinalIndex(db);
 
 			db.execSQL("CREATE TABLE " + TABLE_GAMES + " (" + COL_ID + " INTEGER PRIMARY KEY,"
 					+ COL_SOURCE + " TEXT," + COL_NUMBER + " INTEGER," + COL_TYPE + " INTEGER,"
 					+ COL_PUZZLE + " BLOB," + COL_TIMER + " INTEGER," + COL_SOLVED + " BOOLEAN,"
 					+ COL_CREATED_DATE + " INTEGER," + COL_MODIFIED_DATE + " INTEGER" + ");");
+			createGamesIndexes(db);
+
+			createSolutionsTable(db);
+
+			createStatisticsTable(db);
+		}
+
+		private void createGamesIndexes(SQLiteDatabase db) {
+			db.execSQL("CREATE INDEX " + INDEX_GAMES_SOURCE_NUMBER + " ON " + TABLE_GAMES + " ("
+					+ COL_SOURCE + ", " + COL_NUMBER + ", " + COL_SOLVED + ");");
+			db.execSQL("CREATE INDEX " + INDEX_GAMES_SOURCE_SOLVED + " ON " + TABLE_GAMES + " ("
+					+ COL_SOURCE + ", " + COL_SOLVED + ", " + COL_TIMER + ");");
+			db.execSQL("CREATE INDEX " + INDEX_GAMES_SOLVED_MODIFIED + " ON " + TABLE_GAMES + " ("
+					+ COL_SOLVED + ", " + COL_MODIFIED_DATE + ", " + COL_SOURCE + ", " + COL_NUMBER
+					+ ", " + COL_TYPE + ", " + COL_TIMER + ", " + COL_CREATED_DATE + ");");
+		}
+
+		private void createStatisticsTable(SQLiteDatabase db) {
+			db.execSQL("CREATE TABLE " + TABLE_STATISTICS + " (" + COL_SOURCE
+					+ " TEXT PRIMARY KEY," + COL_SOLVED_COUNT + " INTEGER," + COL_TIME_SUM
+					+ " INTEGER," + COL_TIME_MIN + " INTEGER," + COL_TIME_QUANTILES + " BLOB);");
+		}
+
+		private void rebuildAllStatistics(SQLiteDatabase db) {
+			String[] columns = { COL_SOURCE };
+			String selection = COL_SOLVED + "=1";
+			Cursor cursor = db.query(true, TABLE_GAMES, columns, selection, null, null, null, null,
+					null);
+			try {
+				while (cursor.moveToNext())
+					rebuildStatistics(db, cursor.getString(0));
+			}
+			finally {
+				cursor.close();
+			}
+		}
+
+		private void createSolutionsTable(SQLiteDatabase db) {
+			db.execSQL("CREATE TABLE " + TABLE_SOLUTIONS + " (" + COL_HASH
+					+ " INTEGER PRIMARY KEY," + COL_FINGERPRINT + " TEXT," + COL_SOLUTION
+					+ " TEXT);");
+		}
+
+		private void createPuzzlesOrdinalIndex(SQLiteDatabase db) {
+			db.execSQL("CREATE INDEX " + INDEX_PUZZLES_FOLDER_ORDINAL + " ON " + TABLE_PUZZLES
+					+ " (" + COL_FOLDER + ", " + COL_ORDINAL + ");");
 		}
 
 		@Override
@@ -786,8 +1067,22 @@ public class AndokuDatabase {
 
 			db.beginTransaction();
 			try {
-				if (oldVersion < 2)
+				// upgradeV1ToV2() recreates all tables with the current schema
+				if (oldVersion < 2) {
 					upgradeV1ToV2(db);
+				}
+				else {
+					if (oldVersion < 3)
+						upgradeV2ToV3(db);
+					if (oldVersion < 4)
+						upgradeV3ToV4(db);
+					if (oldVersion < 5)
+						upgradeV4ToV5(db);
+					if (oldVersion < 6)
+						upgradeV5ToV6(db);
+					if (oldVersion < 7)
+						upgradeV6ToV7(db);
+				}
 
 				db.setTransactionSuccessful();
 			}
@@ -825,7 +1120,79 @@ public class AndokuDatabase {
 
 			db.execSQL("DROP TABLE tmp;");
 
+			// onCreate() left the statistics of the copied games empty
+			rebuildAllStatistics(db);
+
 			Log.d(TAG, "Upgraded from version 1 to 2.");
 		}
+
+		private void upgradeV2ToV3(SQLiteDatabase db) {
+			Log.d(TAG, "Upgrading from version 2 to 3.");
+
+			createSolutionsTable(db);
+
+			Log.d(TAG, "Upgraded from version 2 to 3.");
+		}
+
+		private void upgradeV3ToV4(SQLiteDatabase db) {
+			Log.d(TAG, "Upgrading from version 3 to 4.");
+
+			db.execSQL("ALTER TABLE " + TABLE_PUZZLES + " ADD COLUMN " + COL_SOLUTION
+					+ " TEXT DEFAULT '';");
+
+			Log.d(TAG, "Upgraded from version 3 to 4.");
+		}
+
+		private void upgradeV4ToV5(SQLiteDatabase db) {
+			Log.d(TAG, "Upgrading from version 4 to 5.");
+
+			db.execSQL("ALTER TABLE " + TABLE_PUZZLES + " ADD COLUMN " + COL_ORDINAL + " INTEGER;");
+
+			// number the puzzles of each folder in row id order, as LIMIT used to
+			SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_PUZZLES + " SET "
+					+ COL_ORDINAL + "=? WHERE " + COL_ID + "=?");
+			String[] columns = { COL_ID, COL_FOLDER };
+			String orderBy = COL_FOLDER + ", " + COL_ID;
+			Cursor cursor = db.query(TABLE_PUZZLES, columns, null, null, null, null, orderBy);
+			try {
+				long folderId = 0;
+				int ordinal = 0;
+				while (cursor.moveToNext()) {
+					if (cursor.isFirst() || cursor.getLong(1) != folderId) {
+						folderId = cursor.getLong(1);
+						ordinal = 0;
+					}
+
+					update.bindLong(1, ordinal++);
+					update.bindLong(2, cursor.getLong(0));
+					update.execute();
+				}
+			}
+			finally {
+				cursor.close();
+				update.close();
+			}
+
+			createPuzzlesOrdinalIndex(db);
+
+			Log.d(TAG, "Upgraded from version 4 to 5.");
+		}
+
+		private void upgradeV5ToV6(SQLiteDatabase db) {
+			Log.d(TAG, "Upgrading from version 5 to 6.");
+
+			createGamesIndexes(db);
+
+			Log.d(TAG, "Upgraded from version 5 to 6.");
+		}
+
+		private void upgradeV6ToV7(SQLiteDatabase db) {
+			Log.d(TAG, "Upgrading from version 6 to 7.");
+
+			createStatisticsTable(db);
+			rebuildAllStatistics(db);
+
+			Log.d(TAG, "Upgraded from version 6 to 7.");
+		}
 	}
 }
@@ -25,13 +25,33 @@ public class GameStatistics {
 	public final long sumTime;
 	public final long minTime;
 
-	public GameStatistics(int numGamesSolved, long sumTime, long minTime) {
+	private final QuantileSketch timeQuantiles;
+
+	public GameStatistics(int numGamesSolved, long sumTime, long minTime,
+			QuantileSketch timeQuantiles) {
 		this.numGamesSolved = numGamesSolved;
 		this.sumTime = sumTime;
 		this.minTime = minTime;
+		this.timeQuantiles = timeQuantiles;
 	}
 
 	public long getAverageTime() {
 		return numGamesSolved == 0 ? 0 : sumTime / numGamesSolved;
 	}
+
+	QuantileSketch getTimeQuantiles() {
+		return timeQuantiles;
+	}
+
+	public long getMedianTime() {
+		return getTimeQuantile(0.5);
+	}
+
+	/**
+	 * Returns an estimate of the given quantile of the solve times, e.g. 0.9 for the time within
+	 * which 90 percent of the puzzles were solved.
+	 */
+	public long getTimeQuantile(double quantile) {
+		return Math.max(minTime, timeQuantiles.getQuantile(quantile));
+	}
 }
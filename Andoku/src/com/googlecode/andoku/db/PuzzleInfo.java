@@ -33,12 +33,15 @@ public class PuzzleInfo {
 	public static final String EXTRA_COLOR = "C";
 	public static final String EXTRA_NONE = "";
 
+	public static final String SOLUTION_NONE = "";
+
 	private final String name;
 	private final Difficulty difficulty;
 	private final int size;
 	private final String clues; //        "...6.12........3......"
 	private final String areas; //        "11122223311122222341.."|""
 	private final String extraRegions; // "X"|"H"|"P"|"C"|""
+	private final String solution; //     "295143768..."|""
 
 	public static final class Builder {
 		private String name = "";
@@ -47,6 +50,7 @@ public class PuzzleInfo {
 		private final String clues;
 		private String areas = AREAS_NONE;
 		private String extraRegions = EXTRA_NONE;
+		private String solution = SOLUTION_NONE;
 
 		public Builder(String clues) {
 			int size = (int) Math.sqrt(clues.length());
@@ -89,6 +93,14 @@ public class PuzzleInfo {
 			return this;
 		}
 
+		public Builder setSolution(String solution) {
+			if (!isValidSolution(solution))
+				throw new IllegalArgumentException();
+
+			this.solution = solution;
+			return this;
+		}
+
 		public PuzzleInfo build() {
 			return new PuzzleInfo(this);
 		}
@@ -145,6 +157,28 @@ public class PuzzleInfo {
 					|| extraRegions.equalsIgnoreCase(EXTRA_COLOR)
 					|| extraRegions.equalsIgnoreCase(EXTRA_NONE);
 		}
+
+		public boolean isValidSolution(String solution) {
+			final int length = solution.length();
+
+			if (length == 0)
+				return true;
+
+			if (length != size * size)
+				return false;
+
+			for (int i = 0; i < length; i++) {
+				char c = solution.charAt(i);
+				if (c < '1' || c > '9')
+					return false;
+
+				char clue = clues.charAt(i);
+				if (clue != '.' && clue != c)
+					return false;
+			}
+
+			return true;
+		}
 	}
 
 	private PuzzleInfo(Builder builder) {
@@ -154,6 +188,7 @@ public class PuzzleInfo {
 		clues = builder.clues;
 		areas = builder.areas;
 		extraRegions = builder.extraRegions;
+		solution = builder.solution;
 	}
 
 	public String getName() {
@@ -180,8 +215,13 @@ public class PuzzleInfo {
 		return extraRegions;
 	}
 
+	public String getSolution() {
+		return solution;
+	}
+
 	@Override
 	public String toString() {
-		return name + "|" + clues + "|" + areas + "|" + extraRegions + "|" + difficulty;
+		return name + "|" + clues + "|" + areas + "|" + extraRegions + "|" + solution + "|"
+				+ difficulty;
 	}
 }
@@ -0,0 +1,169 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.db;
+
+/**
+ * Streaming quantile sketch for positive values such as solve times. Values are counted in
+ * logarithmic buckets so that every quantile is returned with a relative error of at most one
+ * percent. Unlike most sketches it also supports removing values, so deleting a saved game does
+ * not require rebuilding the sketch.
+ */
+public class QuantileSketch {
+	private static final double RELATIVE_ACCURACY = 0.01;
+	private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+	private static final double LOG_GAMMA = Math.log(GAMMA);
+
+	// counts[i] is the number of values in bucket offset + i
+	private int offset;
+	private int[] counts;
+	private long count;
+
+	public QuantileSketch() {
+		offset = 0;
+		counts = new int[0];
+		count = 0;
+	}
+
+	private QuantileSketch(int offset, int[] counts) {
+		this.offset = offset;
+		this.counts = counts;
+		for (int c : counts)
+			count += c;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void add(long value) {
+		final int bucket = bucketOf(value);
+		ensureBucket(bucket);
+		counts[bucket - offset]++;
+		count++;
+	}
+
+	/**
+	 * Removes a value that has been added before. Returns <code>false</code> if the sketch holds no
+	 * such value.
+	 */
+	public boolean remove(long value) {
+		final int idx = bucketOf(value) - offset;
+		if (idx < 0 || idx >= counts.length || counts[idx] == 0)
+			return false;
+
+		counts[idx]--;
+		count--;
+		return true;
+	}
+
+	/**
+	 * Returns an estimate of the given quantile, e.g. 0.5 for the median, or 0 if the sketch is
+	 * empty.
+	 */
+	public long getQuantile(double quantile) {
+		if (quantile < 0 || quantile > 1)
+			throw new IllegalArgumentException();
+
+		if (count == 0)
+			return 0;
+
+		final long rank = (long) (quantile * (count - 1));
+
+		long seen = 0;
+		for (int idx = 0; idx < counts.length; idx++) {
+			seen += counts[idx];
+			if (seen > rank)
+				return valueOf(offset + idx);
+		}
+
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Serializes the non-empty range of buckets.
+	 */
+	public byte[] toByteArray() {
+		int from = 0;
+		while (from < counts.length && counts[from] == 0)
+			from++;
+		int to = counts.length;
+		while (to > from && counts[to - 1] == 0)
+			to--;
+
+		byte[] bytes = new byte[4 + 4 * (to - from)];
+		putInt(bytes, 0, offset + from);
+		for (int idx = from; idx < to; idx++)
+			putInt(bytes, 4 + 4 * (idx - from), counts[idx]);
+
+		return bytes;
+	}
+
+	public static QuantileSketch fromByteArray(byte[] bytes) {
+		if (bytes.length < 4 || bytes.length % 4 != 0)
+			throw new IllegalArgumentException();
+
+		int[] counts = new int[bytes.length / 4 - 1];
+		for (int idx = 0; idx < counts.length; idx++)
+			counts[idx] = getInt(bytes, 4 + 4 * idx);
+
+		return new QuantileSketch(getInt(bytes, 0), counts);
+	}
+
+	private void ensureBucket(int bucket) {
+		if (counts.length == 0) {
+			offset = bucket;
+			counts = new int[1];
+		}
+		else if (bucket < offset) {
+			int[] newCounts = new int[counts.length + offset - bucket];
+			System.arraycopy(counts, 0, newCounts, offset - bucket, counts.length);
+			counts = newCounts;
+			offset = bucket;
+		}
+		else if (bucket >= offset + counts.length) {
+			int[] newCounts = new int[bucket - offset + 1];
+			System.arraycopy(counts, 0, newCounts, 0, counts.length);
+			counts = newCounts;
+		}
+	}
+
+	private static int bucketOf(long value) {
+		// values below one share the lowest bucket
+		return value <= 1 ? 0 : (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+	}
+
+	private static long valueOf(int bucket) {
+		// bucket i holds (gamma^(i-1), gamma^i]; this estimate is within the relative accuracy
+		return Math.round(2 * Math.pow(GAMMA, bucket) / (GAMMA + 1));
+	}
+
+	private static void putInt(byte[] bytes, int idx, int value) {
+		bytes[idx] = (byte) (value >>> 24);
+		bytes[idx + 1] = (byte) (value >>> 16);
+		bytes[idx + 2] = (byte) (value >>> 8);
+		bytes[idx + 3] = (byte) value;
+	}
+
+	private static int getInt(byte[] bytes, int idx) {
+		return (bytes[idx] & 0xff) << 24 | (bytes[idx + 1] & 0xff) << 16
+				| (bytes[idx + 2] & 0xff) << 8 | bytes[idx + 3] & 0xff;
+	}
+}
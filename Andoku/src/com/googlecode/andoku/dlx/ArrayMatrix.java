@@ -0,0 +1,452 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.dlx;
+
+/**
+ * Dancing links matrix that stores its nodes in parallel <code>int</code> arrays instead of
+ * {@link Data} and {@link Header} objects.
+ *
+ * Node 0 is the root, nodes 1 to <code>columns</code> are the column headers and all following
+ * nodes are the 1-cells of the matrix. Rows are identified by the index returned from
+ * {@link #addRow(int[], int)}.
+ *
+ * After {@link #enableSizeBuckets()} the live columns are additionally kept in doubly linked lists
+ * by size so that {@link #chooseColumn()} finds a smallest column without scanning all headers.
+ */
+public class ArrayMatrix {
+	public static final int ROOT = 0;
+
+	private final int columns;
+
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+	private int[] column;
+	private int[] row;
+
+	// indexed by header node
+	private final int[] size;
+
+	private int[] rowHead;
+
+	private int nodeCount;
+	private int rowCount;
+	private int columnCount;
+
+	// size buckets: indexes 1..columns are headers, bucketBase + s is the list head for size s
+	private int[] bucketNext;
+	private int[] bucketPrev;
+	private int bucketBase;
+	private int maxSize;
+
+	public ArrayMatrix(int columns, int expectedRows, int expectedNodes) {
+		if (columns < 0)
+			throw new IllegalArgumentException("Invalid number of columns: " + columns);
+
+		this.columns = columns;
+
+		final int capacity = columns + 1 + Math.max(expectedNodes, 0);
+		left = new int[capacity];
+		right = new int[capacity];
+		up = new int[capacity];
+		down = new int[capacity];
+		column = new int[capacity];
+		row = new int[capacity];
+
+		size = new int[columns + 1];
+		rowHead = new int[Math.max(expectedRows, 1)];
+
+		for (int c = 0; c <= columns; c++) {
+			left[c] = c == 0 ? columns : c - 1;
+			right[c] = c == columns ? 0 : c + 1;
+			up[c] = c;
+			down[c] = c;
+			column[c] = c;
+			row[c] = -1;
+		}
+
+		nodeCount = columns + 1;
+		columnCount = columns;
+	}
+
+	public ArrayMatrix(ArrayMatrix other) {
+		columns = other.columns;
+
+		left = other.left.clone();
+		right = other.right.clone();
+		up = other.up.clone();
+		down = other.down.clone();
+		column = other.column.clone();
+		row = other.row.clone();
+
+		size = other.size.clone();
+		rowHead = other.rowHead.clone();
+
+		nodeCount = other.nodeCount;
+		rowCount = other.rowCount;
+		columnCount = other.columnCount;
+
+		if (other.bucketNext != null) {
+			bucketNext = other.bucketNext.clone();
+			bucketPrev = other.bucketPrev.clone();
+			bucketBase = other.bucketBase;
+			maxSize = other.maxSize;
+		}
+	}
+
+	/**
+	 * Resets this matrix to the state of the specified matrix, which must have the same number of
+	 * columns. Reuses the arrays of this matrix whenever they are large enough.
+	 */
+	public void copyFrom(ArrayMatrix other) {
+		if (other.columns != columns)
+			throw new IllegalArgumentException("Different number of columns");
+
+		final int nodes = other.nodeCount;
+		if (left.length < nodes) {
+			left = new int[nodes];
+			right = new int[nodes];
+			up = new int[nodes];
+			down = new int[nodes];
+			column = new int[nodes];
+			row = new int[nodes];
+		}
+
+		System.arraycopy(other.left, 0, left, 0, nodes);
+		System.arraycopy(other.right, 0, right, 0, nodes);
+		System.arraycopy(other.up, 0, up, 0, nodes);
+		System.arraycopy(other.down, 0, down, 0, nodes);
+		System.arraycopy(other.column, 0, column, 0, nodes);
+		System.arraycopy(other.row, 0, row, 0, nodes);
+		System.arraycopy(other.size, 0, size, 0, size.length);
+
+		final int rows = other.rowCount;
+		if (rowHead.length < rows)
+			rowHead = new int[rows];
+		System.arraycopy(other.rowHead, 0, rowHead, 0, rows);
+
+		nodeCount = nodes;
+		rowCount = rows;
+		columnCount = other.columnCount;
+
+		if (other.bucketNext == null) {
+			bucketNext = null;
+			bucketPrev = null;
+		}
+		else {
+			final int length = other.bucketNext.length;
+			if (bucketNext == null || bucketNext.length != length) {
+				bucketNext = new int[length];
+				bucketPrev = new int[length];
+			}
+
+			System.arraycopy(other.bucketNext, 0, bucketNext, 0, length);
+			System.arraycopy(other.bucketPrev, 0, bucketPrev, 0, length);
+			bucketBase = other.bucketBase;
+			maxSize = other.maxSize;
+		}
+	}
+
+	/**
+	 * Starts keeping the live columns in buckets by size. Must be called after all rows have been
+	 * added.
+	 */
+	public void enableSizeBuckets() {
+		maxSize = 0;
+		for (int c = 1; c <= columns; c++)
+			maxSize = Math.max(maxSize, size[c]);
+
+		bucketBase = columns + 1;
+		bucketNext = new int[bucketBase + maxSize + 1];
+		bucketPrev = new int[bucketBase + maxSize + 1];
+
+		for (int s = 0; s <= maxSize; s++) {
+			bucketNext[bucketBase + s] = bucketBase + s;
+			bucketPrev[bucketBase + s] = bucketBase + s;
+		}
+
+		for (int c = right[ROOT]; c != ROOT; c = right[c])
+			linkBucket(c);
+	}
+
+	public boolean hasSizeBuckets() {
+		return bucketNext != null;
+	}
+
+	/**
+	 * Appends a row that has 1-cells in the specified columns.
+	 *
+	 * @param columnIndices zero-based column indices of the 1-cells.
+	 * @param count number of valid entries in <code>columnIndices</code>.
+	 * @return the index of the new row.
+	 */
+	public int addRow(int[] columnIndices, int count) {
+		if (count <= 0)
+			throw new IllegalArgumentException("Empty row");
+		if (bucketNext != null)
+			throw new IllegalStateException("Size buckets already enabled");
+
+		ensureNodeCapacity(nodeCount + count);
+		ensureRowCapacity(rowCount + 1);
+
+		final int r = rowCount++;
+		final int first = nodeCount;
+
+		for (int i = 0; i < count; i++) {
+			final int columnIndex = columnIndices[i];
+			if (columnIndex < 0 || columnIndex >= columns)
+				throw new IllegalArgumentException("Invalid column: " + columnIndex);
+
+			final int c = columnIndex + 1;
+			final int node = nodeCount++;
+
+			up[node] = up[c];
+			down[node] = c;
+			down[up[c]] = node;
+			up[c] = node;
+
+			left[node] = node == first ? node : node - 1;
+			right[node] = first;
+			right[left[node]] = node;
+			left[first] = node;
+
+			column[node] = c;
+			row[node] = r;
+			size[c]++;
+		}
+
+		rowHead[r] = first;
+
+		return r;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public int getRowNode(int r) {
+		return rowHead[r];
+	}
+
+	public int left(int node) {
+		return left[node];
+	}
+
+	public int right(int node) {
+		return right[node];
+	}
+
+	public int up(int node) {
+		return up[node];
+	}
+
+	public int down(int node) {
+		return down[node];
+	}
+
+	public int column(int node) {
+		return column[node];
+	}
+
+	public int row(int node) {
+		return row[node];
+	}
+
+	public int size(int header) {
+		return size[header];
+	}
+
+	/**
+	 * Returns the header node of the live column with the fewest 1-cells or {@link #ROOT} if there
+	 * are no columns left.
+	 */
+	public int chooseColumn() {
+		if (bucketNext != null) {
+			for (int h = bucketBase, end = bucketBase + maxSize; h <= end; h++)
+				if (bucketNext[h] != h)
+					return bucketNext[h];
+
+			return ROOT;
+		}
+
+		int best = ROOT;
+		int bestSize = Integer.MAX_VALUE;
+
+		for (int c = right[ROOT]; c != ROOT; c = right[c]) {
+			final int s = size[c];
+			if (s < bestSize) {
+				if (s == 0)
+					return c;
+
+				best = c;
+				bestSize = s;
+			}
+		}
+
+		return best;
+	}
+
+	public void cover(int c) {
+		final int[] left = this.left;
+		final int[] right = this.right;
+		final int[] up = this.up;
+		final int[] down = this.down;
+
+		final boolean buckets = bucketNext != null;
+
+		right[left[c]] = right[c];
+		left[right[c]] = left[c];
+
+		if (buckets)
+			unlinkBucket(c);
+
+		for (int i = down[c]; i != c; i = down[i])
+			for (int j = right[i]; j != i; j = right[j]) {
+				down[up[j]] = down[j];
+				up[down[j]] = up[j];
+
+				final int cj = column[j];
+				if (buckets) {
+					unlinkBucket(cj);
+					size[cj]--;
+					linkBucket(cj);
+				}
+				else {
+					size[cj]--;
+				}
+			}
+
+		columnCount--;
+	}
+
+	public void uncover(int c) {
+		final int[] left = this.left;
+		final int[] right = this.right;
+		final int[] up = this.up;
+		final int[] down = this.down;
+
+		final boolean buckets = bucketNext != null;
+
+		for (int i = up[c]; i != c; i = up[i])
+			for (int j = left[i]; j != i; j = left[j]) {
+				final int cj = column[j];
+				if (buckets) {
+					unlinkBucket(cj);
+					size[cj]++;
+					linkBucket(cj);
+				}
+				else {
+					size[cj]++;
+				}
+
+				down[up[j]] = j;
+				up[down[j]] = j;
+			}
+
+		right[left[c]] = c;
+		left[right[c]] = c;
+
+		if (buckets)
+			linkBucket(c);
+
+		columnCount++;
+	}
+
+	public boolean isCovered(int c) {
+		return right[left[c]] != c;
+	}
+
+	/**
+	 * Covers all columns of the specified row, i.e. makes the row part of every solution.
+	 * 
+	 * @return <code>false</code> if the row conflicts with a previously eliminated row. The matrix
+	 *         is left unchanged in that case.
+	 */
+	public boolean eliminateRow(int r) {
+		final int first = rowHead[r];
+
+		int j = first;
+		do {
+			if (isCovered(column[j]))
+				return false;
+
+			j = right[j];
+		}
+		while (j != first);
+
+		cover(column[first]);
+
+		for (j = right[first]; j != first; j = right[j])
+			cover(column[j]);
+
+		return true;
+	}
+
+	private void linkBucket(int c) {
+		final int h = bucketBase + size[c];
+		final int next = bucketNext[h];
+
+		bucketNext[c] = next;
+		bucketPrev[c] = h;
+		bucketPrev[next] = c;
+		bucketNext[h] = c;
+	}
+
+	private void unlinkBucket(int c) {
+		bucketNext[bucketPrev[c]] = bucketNext[c];
+		bucketPrev[bucketNext[c]] = bucketPrev[c];
+	}
+
+	private void ensureNodeCapacity(int capacity) {
+		if (capacity <= left.length)
+			return;
+
+		final int newCapacity = Math.max(capacity, left.length * 3 / 2 + 1);
+		left = grow(left, newCapacity);
+		right = grow(right, newCapacity);
+		up = grow(up, newCapacity);
+		down = grow(down, newCapacity);
+		column = grow(column, newCapacity);
+		row = grow(row, newCapacity);
+	}
+
+	private void ensureRowCapacity(int capacity) {
+		if (capacity <= rowHead.length)
+			return;
+
+		rowHead = grow(rowHead, Math.max(capacity, rowHead.length * 3 / 2 + 1));
+	}
+
+	private static int[] grow(int[] array, int newCapacity) {
+		int[] newArray = new int[newCapacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
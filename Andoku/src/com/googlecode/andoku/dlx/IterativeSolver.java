@@ -0,0 +1,226 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.dlx;
+
+/**
+ * Dancing links search over an {@link ArrayMatrix} that keeps the current column and row of every
+ * level on an explicit stack instead of recursing.
+ * 
+ * The search pauses when the listener returns <code>false</code> from
+ * {@link ArrayDlxListener#solutionFound()} or {@link ArrayDlxListener#select(int)} and continues
+ * where it left off on the next call to {@link #search()}. {@link #getState()} takes a snapshot
+ * that can be used to resume the search on a fresh copy of the matrix, even in another process.
+ */
+public class IterativeSolver {
+	static final int PHASE_ENTER = 0;
+	static final int PHASE_TRY = 1;
+	static final int PHASE_BACKTRACK = 2;
+	static final int PHASE_DONE = 3;
+
+	private final ArrayMatrix m;
+	private final ArrayDlxListener listener;
+
+	// header node and current row node per level
+	private final int[] columns;
+	private final int[] nodes;
+
+	private int depth;
+	private int phase;
+
+	public IterativeSolver(ArrayMatrix m, ArrayDlxListener listener) {
+		if (m == null)
+			throw new NullPointerException();
+		if (listener == null)
+			throw new NullPointerException();
+
+		this.m = m;
+		this.listener = listener;
+
+		columns = new int[m.getColumns() + 1];
+		nodes = new int[m.getColumns() + 1];
+
+		depth = 0;
+		phase = PHASE_ENTER;
+	}
+
+	/**
+	 * Resumes a search from a snapshot. The matrix has to be in the same state as the matrix of the
+	 * solver the snapshot was taken from when that solver was created. The rows on the stack are
+	 * selected again, so the listener sees the same sequence of calls as the original search did.
+	 */
+	public IterativeSolver(ArrayMatrix m, ArrayDlxListener listener, SearchState state) {
+		this(m, listener);
+
+		if (state.phase < PHASE_ENTER || state.phase > PHASE_DONE)
+			throw new IllegalArgumentException("Invalid phase: " + state.phase);
+		if (state.columns.length != (state.phase == PHASE_TRY ? state.depth + 1 : state.depth))
+			throw new IllegalArgumentException("Invalid number of search levels");
+		if (state.columns.length > columns.length)
+			throw new IllegalArgumentException("Search state does not match matrix");
+
+		for (int level = 0; level < state.depth; level++) {
+			final int c = checkColumn(state.columns[level]);
+			m.cover(c);
+
+			final int r = findNode(c, state.rows[level]);
+			nodes[level] = r;
+			columns[level] = c;
+
+			listener.select(m.row(r));
+			for (int j = m.right(r); j != r; j = m.right(j))
+				m.cover(m.column(j));
+		}
+
+		if (state.phase == PHASE_TRY) {
+			final int c = checkColumn(state.columns[state.depth]);
+			m.cover(c);
+
+			columns[state.depth] = c;
+			nodes[state.depth] = state.rows[state.depth] == -1 ? c : findNode(c,
+					state.rows[state.depth]);
+		}
+
+		depth = state.depth;
+		phase = state.phase;
+	}
+
+	/**
+	 * Runs the search until it is finished or paused by the listener.
+	 * 
+	 * @return <code>true</code> if the search is finished, <code>false</code> if it has been
+	 *         paused and can be continued by calling this method again.
+	 */
+	public boolean search() {
+		final ArrayMatrix m = this.m;
+
+		while (true) {
+			switch (phase) {
+				case PHASE_ENTER: {
+					if (m.getColumnCount() == 0) {
+						phase = PHASE_BACKTRACK;
+						if (!listener.solutionFound())
+							return false;
+						break;
+					}
+
+					final int c = m.chooseColumn();
+					m.cover(c);
+
+					columns[depth] = c;
+					nodes[depth] = m.down(c);
+					phase = PHASE_TRY;
+					break;
+				}
+
+				case PHASE_TRY: {
+					final int c = columns[depth];
+					final int r = nodes[depth];
+
+					if (r == c) {
+						m.uncover(c);
+						phase = PHASE_BACKTRACK;
+						break;
+					}
+
+					final int row = m.row(r);
+					if (!listener.select(row)) {
+						// undo so that resuming selects the row again
+						listener.deselect(row);
+						return false;
+					}
+
+					for (int j = m.right(r); j != r; j = m.right(j))
+						m.cover(m.column(j));
+
+					depth++;
+					phase = PHASE_ENTER;
+					break;
+				}
+
+				case PHASE_BACKTRACK: {
+					if (depth == 0) {
+						phase = PHASE_DONE;
+						return true;
+					}
+
+					depth--;
+
+					final int r = nodes[depth];
+					for (int j = m.left(r); j != r; j = m.left(j))
+						m.uncover(m.column(j));
+
+					listener.deselect(m.row(r));
+
+					nodes[depth] = m.down(r);
+					phase = PHASE_TRY;
+					break;
+				}
+
+				default:
+					return true;
+			}
+		}
+	}
+
+	public boolean isFinished() {
+		return phase == PHASE_DONE;
+	}
+
+	/**
+	 * Returns a snapshot of the current position of the search.
+	 */
+	public SearchState getState() {
+		final int levels = phase == PHASE_TRY ? depth + 1 : depth;
+
+		int[] stateColumns = new int[levels];
+		int[] stateRows = new int[levels];
+		for (int level = 0; level < levels; level++) {
+			stateColumns[level] = columns[level];
+			stateRows[level] = nodes[level] == columns[level] ? -1 : m.row(nodes[level]);
+		}
+
+		return new SearchState(phase, depth, stateColumns, stateRows);
+	}
+
+	private int checkColumn(int c) {
+		if (c < 1 || c > m.getColumns() || m.isCovered(c))
+			throw new IllegalArgumentException("Search state does not match matrix");
+
+		return c;
+	}
+
+	private int findNode(int c, int row) {
+		if (row < 0 || row >= m.getRowCount())
+			throw new IllegalArgumentException("Search state does not match matrix");
+
+		final int first = m.getRowNode(row);
+		int j = first;
+		do {
+			if (m.column(j) == c)
+				return j;
+
+			j = m.right(j);
+		}
+		while (j != first);
+
+		throw new IllegalArgumentException("Search state does not match matrix");
+	}
+}
@@ -100,13 +100,30 @@ public class Matrix<P> {
 		this.columnCount++;
 	}
 
-	public void eliminateRow(Data row) {
+	/**
+	 * Covers all columns of the specified row, i.e. makes the row part of every solution.
+	 * 
+	 * @return <code>false</code> if the row conflicts with a previously eliminated row. The matrix
+	 *         is left unchanged in that case.
+	 */
+	public boolean eliminateRow(Data row) {
 		assert !(row instanceof Header);
 
+		Data j = row;
+		do {
+			if (j.column.right.left != j.column)
+				return false; // column already covered
+
+			j = j.right;
+		}
+		while (j != row);
+
 		cover(row.column);
 
-		for (Data j = row.right; j != row; j = j.right)
+		for (j = row.right; j != row; j = j.right)
 			cover(j.column);
+
+		return true;
 	}
 
 	public Header getRoot() {
@@ -0,0 +1,39 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.dlx;
+
+/**
+ * Receives events about the progress of a search. A solver without an observer does not pay for
+ * collecting them.
+ */
+public interface SearchObserver {
+	/**
+	 * A search node has been entered. <code>branches</code> is the number of alternatives at that
+	 * node; a node without alternatives is a dead end.
+	 */
+	void nodeEntered(int depth, int branches);
+
+	void columnsCovered(int count);
+
+	void columnsUncovered(int count);
+
+	void solutionFound(int depth);
+}
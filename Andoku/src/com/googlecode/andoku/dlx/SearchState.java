@@ -0,0 +1,97 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.dlx;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Snapshot of an {@link IterativeSolver}. Holds the column and the current row of every search
+ * level, so it can be written to a stream and used to resume the search on a fresh copy of the
+ * same matrix.
+ */
+public final class SearchState {
+	private static final short MAGIC = (short) 0xd1c5;
+	private static final short VERSION = 1;
+
+	final int phase;
+	final int depth;
+	final int[] columns;
+	final int[] rows;
+
+	SearchState(int phase, int depth, int[] columns, int[] rows) {
+		this.phase = phase;
+		this.depth = depth;
+		this.columns = columns;
+		this.rows = rows;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeShort(MAGIC);
+		out.writeShort(VERSION);
+
+		out.writeByte(phase);
+		out.writeInt(depth);
+		out.writeInt(columns.length);
+		for (int i = 0; i < columns.length; i++) {
+			out.writeInt(columns[i]);
+			out.writeInt(rows[i]);
+		}
+	}
+
+	public static SearchState readFrom(DataInput in) throws IOException {
+		short magic = in.readShort();
+		if (magic != MAGIC)
+			throw new IOException("Unrecognized search state magic: " + magic);
+
+		short version = in.readShort();
+		if (version != VERSION)
+			throw new IOException("Invalid search state version: " + version);
+
+		int phase = in.readByte();
+		if (phase < IterativeSolver.PHASE_ENTER || phase > IterativeSolver.PHASE_DONE)
+			throw new IOException("Invalid search phase: " + phase);
+
+		int depth = in.readInt();
+		if (depth < 0)
+			throw new IOException("Invalid search depth: " + depth);
+
+		// the column of the current level is only on the stack while its rows are being tried
+		int levels = in.readInt();
+		int expectedLevels = phase == IterativeSolver.PHASE_TRY ? depth + 1 : depth;
+		if (levels != expectedLevels)
+			throw new IOException("Invalid number of search levels: " + levels);
+
+		int[] columns = new int[levels];
+		int[] rows = new int[levels];
+		for (int i = 0; i < levels; i++) {
+			columns[i] = in.readInt();
+			rows[i] = in.readInt();
+		}
+
+		return new SearchState(phase, depth, columns, rows);
+	}
+}
@@ -34,6 +34,11 @@ public class Solver {
 	private final Comparator<Header> columnComparator;
 	private final RowSorter rowSorter;
 
+	private final ArrayMatrix am;
+	private final ArrayDlxListener arrayListener;
+
+	private SearchObserver observer;
+
 	public Solver(Matrix<?> m, DlxListener listener, Comparator<Header> columnComparator,
 			RowSorter rowSorter) {
 		if (m == null)
@@ -47,47 +52,169 @@ public class Solver {
 		this.listener = listener;
 		this.columnComparator = columnComparator;
 		this.rowSorter = rowSorter;
+
+		this.am = null;
+		this.arrayListener = null;
+	}
+
+	/**
+	 * Creates a solver that searches an {@link ArrayMatrix}. Columns are chosen by minimum size,
+	 * in constant time if the matrix has {@link ArrayMatrix#enableSizeBuckets() size buckets}, and
+	 * rows are visited in matrix order without allocating. Use the {@link Matrix} based constructor
+	 * for a custom column order or a {@link RowSorter}.
+	 */
+	public Solver(ArrayMatrix m, ArrayDlxListener listener) {
+		if (m == null)
+			throw new NullPointerException();
+		if (listener == null)
+			throw new NullPointerException();
+
+		this.m = null;
+		this.listener = null;
+		this.columnComparator = null;
+		this.rowSorter = null;
+
+		this.am = m;
+		this.arrayListener = listener;
+	}
+
+	/**
+	 * Sets an observer that is notified about the progress of the search; <code>null</code> to
+	 * disable.
+	 */
+	public void setObserver(SearchObserver observer) {
+		this.observer = observer;
 	}
 
 	public void search() {
-		search0();
+		if (am != null)
+			searchArray0(0);
+		else
+			search0(0);
 	}
 
-	private boolean search0() {
+	private boolean search0(int depth) {
 		Header root = m.getRoot();
-		if (m.getColumnCount() == 0)
+		if (m.getColumnCount() == 0) {
+			if (observer != null)
+				observer.solutionFound(depth);
 			return listener.solutionFound();
+		}
 
 		boolean proceed = true;
 
 		Header c = chooseColumn(root);
+		if (observer != null) {
+			observer.nodeEntered(depth, c.size);
+			observer.columnsCovered(1);
+		}
 		m.cover(c);
 
-		for (Data row : getRows(c)) {
-			proceed = listener.select(row);
+		if (rowSorter == null) {
+			// no reordering required; iterate rows in place
+			for (Data row = c.down; row != c && proceed; row = row.down)
+				proceed = searchRow(row, depth);
+		}
+		else {
+			for (Data row : getRows(c)) {
+				proceed = searchRow(row, depth);
+
+				if (!proceed)
+					break;
+			}
+		}
+
+		m.uncover(c);
+		if (observer != null)
+			observer.columnsUncovered(1);
+
+		return proceed;
+	}
+
+	private boolean searchRow(Data row, int depth) {
+		if (!listener.select(row))
+			return false;
+
+		for (Data j = row.right; j != row; j = j.right)
+			m.cover(j.column);
+		if (observer != null)
+			observer.columnsCovered(countRowColumns(row));
+
+		boolean proceed = search0(depth + 1);
+
+		for (Data j = row.left; j != row; j = j.left)
+			m.uncover(j.column);
+		if (observer != null)
+			observer.columnsUncovered(countRowColumns(row));
+
+		listener.deselect(row);
+
+		return proceed;
+	}
+
+	private boolean searchArray0(int depth) {
+		if (am.getColumnCount() == 0) {
+			if (observer != null)
+				observer.solutionFound(depth);
+			return arrayListener.solutionFound();
+		}
+
+		boolean proceed = true;
+
+		final int c = am.chooseColumn();
+		if (observer != null) {
+			observer.nodeEntered(depth, am.size(c));
+			observer.columnsCovered(1);
+		}
+		am.cover(c);
+
+		for (int r = am.down(c); r != c; r = am.down(r)) {
+			final int row = am.row(r);
+			proceed = arrayListener.select(row);
 
 			if (!proceed)
 				break;
 
-			for (Data j = row.right; j != row; j = j.right)
-				m.cover(j.column);
+			for (int j = am.right(r); j != r; j = am.right(j))
+				am.cover(am.column(j));
+			if (observer != null)
+				observer.columnsCovered(countRowColumns(r));
 
-			proceed = search0();
+			proceed = searchArray0(depth + 1);
 
-			for (Data j = row.left; j != row; j = j.left)
-				m.uncover(j.column);
+			for (int j = am.left(r); j != r; j = am.left(j))
+				am.uncover(am.column(j));
+			if (observer != null)
+				observer.columnsUncovered(countRowColumns(r));
 
-			listener.deselect(row);
+			arrayListener.deselect(row);
 
 			if (!proceed)
 				break;
 		}
 
-		m.uncover(c);
+		am.uncover(c);
+		if (observer != null)
+			observer.columnsUncovered(1);
 
 		return proceed;
 	}
 
+	// number of columns covered when a row is selected, excluding the column it was selected from
+	private static int countRowColumns(Data row) {
+		int count = 0;
+		for (Data j = row.right; j != row; j = j.right)
+			count++;
+		return count;
+	}
+
+	private int countRowColumns(int r) {
+		int count = 0;
+		for (int j = am.right(r); j != r; j = am.right(j))
+			count++;
+		return count;
+	}
+
 	private Header chooseColumn(Header root) {
 		Header best = null;
 
@@ -0,0 +1,167 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.generator;
+
+import java.util.Random;
+
+import com.googlecode.andoku.transfer.StandardAreas;
+
+/**
+ * Generates random squiggly area layouts.
+ * 
+ * Starts with the standard areas and repeatedly exchanges two cells on the border between two
+ * areas. An exchange keeps the size of both areas and is only kept if both areas remain
+ * connected.
+ */
+public class AreaGenerator {
+	private static final int SWAPS_PER_CELL = 4;
+
+	private static final int[] DR = { -1, 0, 1, 0 };
+	private static final int[] DC = { 0, 1, 0, -1 };
+
+	private final Random random;
+
+	public AreaGenerator(Random random) {
+		this.random = random;
+	}
+
+	public int[][] generate(int size) {
+		int[][] areas = copy(StandardAreas.getAreas(size));
+
+		final int swaps = size * size * SWAPS_PER_CELL;
+		for (int i = 0; i < swaps; i++)
+			trySwap(areas, size);
+
+		return areas;
+	}
+
+	private void trySwap(int[][] areas, int size) {
+		// a random cell a and a random neighbor b in a different area
+		int ra = random.nextInt(size);
+		int ca = random.nextInt(size);
+		int d = random.nextInt(4);
+		int rb = ra + DR[d];
+		int cb = ca + DC[d];
+		if (!inside(size, rb, cb))
+			return;
+
+		final int areaA = areas[ra][ca];
+		final int areaB = areas[rb][cb];
+		if (areaA == areaB)
+			return;
+
+		// a random cell of area b that borders area a other than b itself moves into area a
+		int rc = -1;
+		int cc = -1;
+		int candidates = 0;
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (areas[row][col] != areaB || row == rb && col == cb)
+					continue;
+				if (!borders(areas, size, row, col, areaA, ra, ca))
+					continue;
+				if (random.nextInt(++candidates) == 0) {
+					rc = row;
+					cc = col;
+				}
+			}
+		}
+
+		if (candidates == 0)
+			return;
+
+		// cell a joins area b, cell c joins area a
+		areas[ra][ca] = areaB;
+		areas[rc][cc] = areaA;
+
+		if (!isConnected(areas, size, areaA) || !isConnected(areas, size, areaB)) {
+			areas[ra][ca] = areaA;
+			areas[rc][cc] = areaB;
+		}
+	}
+
+	// checks if the cell borders area a after cell (ra, ca) has left that area
+	private static boolean borders(int[][] areas, int size, int row, int col, int areaA, int ra,
+			int ca) {
+		for (int d = 0; d < 4; d++) {
+			int r = row + DR[d];
+			int c = col + DC[d];
+			if (inside(size, r, c) && areas[r][c] == areaA && (r != ra || c != ca))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static boolean isConnected(int[][] areas, int size, int area) {
+		boolean[] visited = new boolean[size * size];
+		int[] stack = new int[size * size];
+		int sp = 0;
+		int total = 0;
+
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (areas[row][col] != area)
+					continue;
+
+				total++;
+				if (sp == 0 && total == 1) {
+					stack[sp++] = row * size + col;
+					visited[row * size + col] = true;
+				}
+			}
+		}
+
+		int reached = 0;
+		while (sp > 0) {
+			int cell = stack[--sp];
+			reached++;
+
+			int row = cell / size;
+			int col = cell % size;
+			for (int d = 0; d < 4; d++) {
+				int r = row + DR[d];
+				int c = col + DC[d];
+				if (!inside(size, r, c) || areas[r][c] != area)
+					continue;
+
+				int next = r * size + c;
+				if (!visited[next]) {
+					visited[next] = true;
+					stack[sp++] = next;
+				}
+			}
+		}
+
+		return reached == total;
+	}
+
+	private static boolean inside(int size, int row, int col) {
+		return row >= 0 && row < size && col >= 0 && col < size;
+	}
+
+	private static int[][] copy(int[][] areas) {
+		int[][] result = new int[areas.length][];
+		for (int i = 0; i < areas.length; i++)
+			result[i] = areas[i].clone();
+		return result;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.generator;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.PuzzleType;
+
+/**
+ * Generates puzzles on multiple threads.
+ * 
+ * Every worker owns a {@link PuzzleGenerator} with its own random number generator and solver
+ * state and puts finished puzzles into a bounded queue. Workers block while the queue is full so
+ * generation runs only as far ahead of the consumer as the queue capacity allows.
+ */
+public class ParallelPuzzleGenerator {
+	private static final long POLL_MILLIS = 100;
+
+	private final PuzzleType puzzleType;
+	private final int size;
+	private final int threads;
+	private final long seed;
+	private final BlockingQueue<Puzzle> queue;
+
+	private ExecutorService executor;
+	private volatile RuntimeException failure;
+
+	public ParallelPuzzleGenerator(PuzzleType puzzleType, int threads, int capacity, long seed) {
+		this(puzzleType, 9, threads, capacity, seed);
+	}
+
+	public ParallelPuzzleGenerator(PuzzleType puzzleType, int size, int threads, int capacity,
+			long seed) {
+		if (puzzleType == null)
+			throw new NullPointerException();
+		if (threads < 1)
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		if (capacity < 1)
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+
+		// fail early for unsupported combinations of type and size
+		PuzzleGenerator.createExtraRegions(puzzleType, size);
+
+		this.puzzleType = puzzleType;
+		this.size = size;
+		this.threads = threads;
+		this.seed = seed;
+		this.queue = new ArrayBlockingQueue<Puzzle>(capacity);
+	}
+
+	public synchronized void start() {
+		if (executor != null)
+			throw new IllegalStateException("Already started");
+
+		executor = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++)
+			executor.execute(new Worker(new Random(seed + i)));
+	}
+
+	/**
+	 * Retrieves the next puzzle, waiting for a worker to finish one if necessary.
+	 * 
+	 * @throws IllegalStateException if the generator has not been started or has been shut down.
+	 * @throws RuntimeException if a worker failed.
+	 */
+	public Puzzle take() throws InterruptedException {
+		checkRunning();
+
+		while (true) {
+			Puzzle puzzle = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			if (puzzle != null)
+				return puzzle;
+
+			if (failure != null)
+				throw failure;
+
+			// no worker is left to produce a puzzle
+			checkRunning();
+		}
+	}
+
+	public synchronized void shutdown() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	private synchronized void checkRunning() {
+		if (executor == null)
+			throw new IllegalStateException("Not started");
+		if (executor.isShutdown())
+			throw new IllegalStateException("Shut down");
+	}
+
+	private final class Worker implements Runnable {
+		private final PuzzleGenerator generator;
+
+		public Worker(Random random) {
+			this.generator = new PuzzleGenerator(random);
+		}
+
+		public void run() {
+			try {
+				while (!Thread.currentThread().isInterrupted())
+					queue.put(generator.generate(puzzleType, size));
+			}
+			catch (InterruptedException e) {
+				// shut down
+			}
+			catch (RuntimeException e) {
+				failure = e;
+			}
+		}
+	}
+}
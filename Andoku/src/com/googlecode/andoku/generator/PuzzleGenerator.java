@@ -0,0 +1,154 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.generator;
+
+import java.util.Random;
+
+import com.googlecode.andoku.model.ExtraRegion;
+import com.googlecode.andoku.model.ExtraRegions;
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.PuzzleType;
+import com.googlecode.andoku.solver.DlxPuzzleSolver;
+import com.googlecode.andoku.solver.SingleSolutionReporter;
+import com.googlecode.andoku.solver.UniquenessOracle;
+import com.googlecode.andoku.transfer.StandardAreas;
+
+/**
+ * Generates puzzles with a unique solution.
+ * 
+ * A randomized {@link DlxPuzzleSolver} fills an empty grid, then clues are removed in random order
+ * as long as a {@link UniquenessOracle} confirms that the puzzle keeps a unique solution.
+ * Squiggly layouts that cannot be filled within a bounded number of updates are discarded and
+ * replaced by a new layout.
+ * 
+ * Instances are not thread safe; use one generator per thread.
+ */
+public class PuzzleGenerator {
+	// restarting a randomized search is cheaper than waiting for a long running one to finish
+	private static final long MAX_FILL_UPDATES = 2000;
+	private static final int FILL_ATTEMPTS = 4;
+
+	private final Random random;
+	private final DlxPuzzleSolver filler;
+	private final AreaGenerator areaGenerator;
+
+	public PuzzleGenerator(Random random) {
+		this.random = random;
+		this.filler = new DlxPuzzleSolver(random, MAX_FILL_UPDATES);
+		this.areaGenerator = new AreaGenerator(random);
+	}
+
+	public Puzzle generate(PuzzleType puzzleType) {
+		return generate(puzzleType, 9);
+	}
+
+	public Puzzle generate(PuzzleType puzzleType, int size) {
+		ExtraRegion[] extraRegions = createExtraRegions(puzzleType, size);
+
+		while (true) {
+			int[][] areaCodes = isSquiggly(puzzleType) ? areaGenerator.generate(size) : StandardAreas
+					.getAreas(size);
+
+			Puzzle solution = fill(Geometry.of(areaCodes, extraRegions));
+			if (solution != null)
+				return removeClues(solution);
+		}
+	}
+
+	private Puzzle fill(Geometry geometry) {
+		for (int attempt = 0; attempt < FILL_ATTEMPTS; attempt++) {
+			SingleSolutionReporter solutionReporter = new SingleSolutionReporter();
+			filler.solve(new Puzzle(geometry), solutionReporter);
+
+			Puzzle solution = solutionReporter.getSolution();
+			if (solution != null)
+				return solution;
+		}
+
+		return null;
+	}
+
+	private Puzzle removeClues(Puzzle puzzle) {
+		final int size = puzzle.getSize();
+		UniquenessOracle oracle = new UniquenessOracle(puzzle);
+
+		int[] order = shuffledCells(size * size);
+		for (int cell : order) {
+			final int row = cell / size;
+			final int col = cell % size;
+
+			if (oracle.isUniqueWithout(puzzle, row, col))
+				puzzle.clear(row, col);
+		}
+
+		return puzzle;
+	}
+
+	private int[] shuffledCells(int cells) {
+		int[] order = new int[cells];
+		for (int i = 0; i < cells; i++)
+			order[i] = i;
+
+		for (int i = cells; i > 1; i--) {
+			int x = i - 1;
+			int y = random.nextInt(i);
+
+			int tmp = order[x];
+			order[x] = order[y];
+			order[y] = tmp;
+		}
+
+		return order;
+	}
+
+	static boolean isSquiggly(PuzzleType puzzleType) {
+		switch (puzzleType) {
+			case SQUIGGLY:
+			case SQUIGGLY_X:
+			case SQUIGGLY_HYPER:
+			case SQUIGGLY_PERCENT:
+			case SQUIGGLY_COLOR:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static ExtraRegion[] createExtraRegions(PuzzleType puzzleType, int size) {
+		switch (puzzleType) {
+			case STANDARD_X:
+			case SQUIGGLY_X:
+				return ExtraRegions.x(size);
+			case STANDARD_HYPER:
+			case SQUIGGLY_HYPER:
+				return ExtraRegions.hyper(size);
+			case STANDARD_PERCENT:
+			case SQUIGGLY_PERCENT:
+				return ExtraRegions.percent(size);
+			case STANDARD_COLOR:
+			case SQUIGGLY_COLOR:
+				return ExtraRegions.color(size);
+			default:
+				return ExtraRegions.none();
+		}
+	}
+}
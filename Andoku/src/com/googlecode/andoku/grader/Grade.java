@@ -0,0 +1,113 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.grader;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.googlecode.andoku.model.Difficulty;
+
+/**
+ * Outcome of grading a puzzle with the {@link LogicalSolver}.
+ */
+public final class Grade {
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	private final boolean valid;
+	private final boolean solved;
+	private final int[] counts;
+
+	Grade(boolean valid, boolean solved, int[] counts) {
+		this.valid = valid;
+		this.solved = solved;
+		this.counts = counts.clone();
+	}
+
+	/**
+	 * Returns <code>false</code> if the techniques revealed a contradiction in the clues.
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Returns <code>true</code> if the puzzle could be solved without guessing.
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	/**
+	 * Returns how often the specified technique had to be applied.
+	 */
+	public int getCount(Technique technique) {
+		return counts[technique.ordinal()];
+	}
+
+	public Set<Technique> getTechniques() {
+		Set<Technique> techniques = EnumSet.noneOf(Technique.class);
+		for (Technique technique : TECHNIQUES)
+			if (counts[technique.ordinal()] > 0)
+				techniques.add(technique);
+		return techniques;
+	}
+
+	/**
+	 * Returns the most expensive technique that had to be applied or <code>null</code> if the
+	 * puzzle did not require any.
+	 */
+	public Technique getHardestTechnique() {
+		for (int i = TECHNIQUES.length - 1; i >= 0; i--)
+			if (counts[i] > 0)
+				return TECHNIQUES[i];
+		return null;
+	}
+
+	/**
+	 * Maps the hardest technique to a difficulty. Puzzles that cannot be solved without guessing
+	 * are {@link Difficulty#FIENDISH}, invalid puzzles {@link Difficulty#UNKNOWN}.
+	 */
+	public Difficulty getDifficulty() {
+		if (!valid)
+			return Difficulty.UNKNOWN;
+		if (!solved)
+			return Difficulty.FIENDISH;
+
+		Technique hardest = getHardestTechnique();
+		return hardest == null ? Difficulty.EASY : hardest.getDifficulty();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getDifficulty());
+		if (valid && !solved)
+			sb.append(" (unsolved)");
+
+		for (Technique technique : TECHNIQUES) {
+			int count = counts[technique.ordinal()];
+			if (count > 0)
+				sb.append(' ').append(technique).append('=').append(count);
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,488 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.grader;
+
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+
+/**
+ * Solves puzzles the way a human would and records the techniques that were needed.
+ * 
+ * Candidates are kept as bit masks and updated incrementally whenever a value is placed or
+ * eliminated. Techniques are tried in the order of {@link Technique}; after every successful step
+ * the solver starts over with the cheapest technique. All techniques work on the regions of the
+ * puzzle, including squiggly areas and extra regions, except for fish patterns which are defined
+ * on rows and columns only.
+ * 
+ * Instances are not thread safe; buffers are reused between puzzles of the same geometry.
+ */
+public class LogicalSolver {
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	private Geometry geometry;
+	private int size;
+	private int cellCount;
+	private int regionCount;
+	private int all;
+
+	// regions every cell belongs to as a bit mask of region ids
+	private long[] cellRegionMasks;
+
+	private int[] candidates;
+	private int[] values;
+	private int[] regionValues;
+	private int unsolved;
+	private boolean invalid;
+
+	private final int[] counts = new int[TECHNIQUES.length];
+
+	// state of the subset and fish searches
+	private final int[] subsetMasks = new int[32];
+	private final int[] subsetKeys = new int[32];
+	private final int[] selection = new int[4];
+	private Technique subsetTechnique;
+	private int subsetRegion;
+	private int subsetValue;
+	private boolean subsetRows;
+
+	public LogicalSolver() {
+	}
+
+	public Grade grade(Puzzle puzzle) {
+		init(puzzle);
+
+		while (unsolved > 0 && !invalid) {
+			if (!step())
+				break;
+		}
+
+		return new Grade(!invalid, !invalid && unsolved == 0, counts);
+	}
+
+	private boolean step() {
+		for (Technique technique : TECHNIQUES) {
+			if (apply(technique)) {
+				counts[technique.ordinal()]++;
+				return true;
+			}
+
+			if (invalid)
+				return false;
+		}
+
+		return false;
+	}
+
+	private boolean apply(Technique technique) {
+		switch (technique) {
+			case HIDDEN_SINGLE:
+				return hiddenSingle();
+			case NAKED_SINGLE:
+				return nakedSingle();
+			case LOCKED_CANDIDATES:
+				return lockedCandidates();
+			case NAKED_PAIR:
+				return nakedSubset(technique, 2);
+			case HIDDEN_PAIR:
+				return hiddenSubset(technique, 2);
+			case NAKED_TRIPLE:
+				return nakedSubset(technique, 3);
+			case HIDDEN_TRIPLE:
+				return hiddenSubset(technique, 3);
+			case X_WING:
+				return fish(technique, 2);
+			case NAKED_QUAD:
+				return nakedSubset(technique, 4);
+			case HIDDEN_QUAD:
+				return hiddenSubset(technique, 4);
+			case SWORDFISH:
+				return fish(technique, 3);
+			case JELLYFISH:
+				return fish(technique, 4);
+			default:
+				throw new IllegalArgumentException();
+		}
+	}
+
+	private void init(Puzzle puzzle) {
+		if (puzzle.getGeometry() != geometry) {
+			geometry = puzzle.getGeometry();
+			size = geometry.getSize();
+			cellCount = geometry.getCellCount();
+			regionCount = geometry.getRegions().length;
+			all = (1 << size) - 1;
+
+			if (regionCount > 64)
+				throw new IllegalArgumentException("Too many regions: " + regionCount);
+
+			cellRegionMasks = new long[cellCount];
+			for (int cell = 0; cell < cellCount; cell++)
+				for (int region : geometry.getCellRegions(cell))
+					cellRegionMasks[cell] |= 1L << region;
+
+			candidates = new int[cellCount];
+			values = new int[cellCount];
+			regionValues = new int[regionCount];
+		}
+
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = 0;
+
+		for (int region = 0; region < regionCount; region++)
+			regionValues[region] = 0;
+
+		unsolved = 0;
+		invalid = false;
+
+		for (int cell = 0; cell < cellCount; cell++) {
+			final int row = cell / size;
+			final int col = cell % size;
+			final int value = puzzle.getValue(row, col);
+
+			values[cell] = value;
+
+			if (value == Puzzle.UNDEFINED) {
+				candidates[cell] = puzzle.getPossibleValuesMask(row, col);
+				if (candidates[cell] == 0)
+					invalid = true;
+				unsolved++;
+			}
+			else {
+				candidates[cell] = 0;
+				for (int region : geometry.getCellRegions(cell)) {
+					if ((regionValues[region] & 1 << value) != 0)
+						invalid = true;
+					regionValues[region] |= 1 << value;
+				}
+			}
+		}
+	}
+
+	private void place(int cell, int value) {
+		final int bit = 1 << value;
+
+		values[cell] = value;
+		candidates[cell] = 0;
+		unsolved--;
+
+		for (int region : geometry.getCellRegions(cell))
+			regionValues[region] |= bit;
+
+		for (int peer : geometry.getPeers(cell)) {
+			if (values[peer] == value)
+				invalid = true;
+			else
+				eliminate(peer, bit);
+		}
+	}
+
+	private boolean eliminate(int cell, int mask) {
+		final int before = candidates[cell];
+		if ((before & mask) == 0)
+			return false;
+
+		candidates[cell] = before & ~mask;
+		if (candidates[cell] == 0)
+			invalid = true;
+
+		return true;
+	}
+
+	private boolean hiddenSingle() {
+		for (int region = 0; region < regionCount; region++) {
+			final int[] cells = geometry.getRegionCells(region);
+
+			int once = 0;
+			int twice = 0;
+			for (int cell : cells) {
+				final int c = candidates[cell];
+				twice |= once & c;
+				once |= c;
+			}
+
+			if ((once | regionValues[region]) != all) {
+				invalid = true;
+				return false;
+			}
+
+			final int hidden = once & ~twice;
+			if (hidden == 0)
+				continue;
+
+			final int value = Integer.numberOfTrailingZeros(hidden);
+			for (int cell : cells) {
+				if ((candidates[cell] & 1 << value) != 0) {
+					place(cell, value);
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private boolean nakedSingle() {
+		for (int cell = 0; cell < cellCount; cell++) {
+			final int c = candidates[cell];
+			if (c != 0 && (c & c - 1) == 0) {
+				place(cell, Integer.numberOfTrailingZeros(c));
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * If all candidates for a value in one region also lie in a second region the value can be
+	 * eliminated from the rest of the second region (pointing and claiming).
+	 */
+	private boolean lockedCandidates() {
+		for (int region = 0; region < regionCount; region++) {
+			final int[] cells = geometry.getRegionCells(region);
+
+			int open = all & ~regionValues[region];
+			while (open != 0) {
+				final int bit = open & -open;
+				open &= ~bit;
+
+				long common = 0;
+				boolean first = true;
+				for (int cell : cells) {
+					if ((candidates[cell] & bit) != 0) {
+						common = first ? cellRegionMasks[cell] : common & cellRegionMasks[cell];
+						first = false;
+					}
+				}
+
+				common &= ~(1L << region);
+				boolean changed = false;
+				while (common != 0) {
+					final int other = Long.numberOfTrailingZeros(common);
+					common &= common - 1;
+
+					for (int cell : geometry.getRegionCells(other))
+						if ((cellRegionMasks[cell] & 1L << region) == 0)
+							changed |= eliminate(cell, bit);
+				}
+
+				if (changed)
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * If <code>n</code> cells of a region have only <code>n</code> candidates in total these values
+	 * can be eliminated from the other cells of the region.
+	 */
+	private boolean nakedSubset(Technique technique, int n) {
+		for (int region = 0; region < regionCount; region++) {
+			final int[] cells = geometry.getRegionCells(region);
+
+			int count = 0;
+			int open = 0;
+			for (int cell : cells) {
+				final int c = candidates[cell];
+				if (c == 0)
+					continue;
+
+				open++;
+				if (Integer.bitCount(c) <= n) {
+					subsetMasks[count] = c;
+					subsetKeys[count] = cell;
+					count++;
+				}
+			}
+
+			if (count < n || open <= n)
+				continue;
+
+			subsetTechnique = technique;
+			subsetRegion = region;
+			if (findSubset(count, n, 0, 0, 0))
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * If <code>n</code> values of a region can only go into the same <code>n</code> cells all other
+	 * candidates can be eliminated from these cells.
+	 */
+	private boolean hiddenSubset(Technique technique, int n) {
+		for (int region = 0; region < regionCount; region++) {
+			final int[] cells = geometry.getRegionCells(region);
+
+			int open = all & ~regionValues[region];
+			if (Integer.bitCount(open) <= n)
+				continue;
+
+			int count = 0;
+			for (int value = 0; value < size; value++) {
+				if ((open & 1 << value) == 0)
+					continue;
+
+				int positions = 0;
+				for (int i = 0; i < cells.length; i++)
+					if ((candidates[cells[i]] & 1 << value) != 0)
+						positions |= 1 << i;
+
+				if (Integer.bitCount(positions) <= n) {
+					subsetMasks[count] = positions;
+					subsetKeys[count] = value;
+					count++;
+				}
+			}
+
+			if (count < n)
+				continue;
+
+			subsetTechnique = technique;
+			subsetRegion = region;
+			if (findSubset(count, n, 0, 0, 0))
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * If the candidates for a value in <code>n</code> rows lie in only <code>n</code> columns the
+	 * value can be eliminated from the rest of these columns, and vice versa.
+	 */
+	private boolean fish(Technique technique, int n) {
+		for (int value = 0; value < size; value++) {
+			final int bit = 1 << value;
+
+			for (int orientation = 0; orientation < 2; orientation++) {
+				final boolean rows = orientation == 0;
+
+				int count = 0;
+				for (int line = 0; line < size; line++) {
+					int positions = 0;
+					for (int i = 0; i < size; i++) {
+						final int cell = rows ? line * size + i : i * size + line;
+						if ((candidates[cell] & bit) != 0)
+							positions |= 1 << i;
+					}
+
+					final int c = Integer.bitCount(positions);
+					if (c >= 2 && c <= n) {
+						subsetMasks[count] = positions;
+						subsetKeys[count] = line;
+						count++;
+					}
+				}
+
+				if (count < n)
+					continue;
+
+				subsetTechnique = technique;
+				subsetValue = value;
+				subsetRows = rows;
+				if (findSubset(count, n, 0, 0, 0))
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean findSubset(int count, int n, int start, int depth, int union) {
+		if (depth == n)
+			return Integer.bitCount(union) == n && applySubset(n, union);
+
+		for (int i = start; i <= count - (n - depth); i++) {
+			final int u = union | subsetMasks[i];
+			if (Integer.bitCount(u) > n)
+				continue;
+
+			selection[depth] = i;
+			if (findSubset(count, n, i + 1, depth + 1, u))
+				return true;
+		}
+
+		return false;
+	}
+
+	private boolean applySubset(int n, int union) {
+		boolean changed = false;
+
+		switch (subsetTechnique) {
+			case NAKED_PAIR:
+			case NAKED_TRIPLE:
+			case NAKED_QUAD:
+				// union holds the values of the selected cells
+				for (int cell : geometry.getRegionCells(subsetRegion)) {
+					if (!isSelectedKey(n, cell))
+						changed |= eliminate(cell, union);
+				}
+				break;
+
+			case HIDDEN_PAIR:
+			case HIDDEN_TRIPLE:
+			case HIDDEN_QUAD: {
+				// union holds the positions of the selected values
+				int keep = 0;
+				for (int i = 0; i < n; i++)
+					keep |= 1 << subsetKeys[selection[i]];
+
+				final int[] cells = geometry.getRegionCells(subsetRegion);
+				for (int i = 0; i < cells.length; i++)
+					if ((union & 1 << i) != 0)
+						changed |= eliminate(cells[i], ~keep & all);
+				break;
+			}
+
+			default: {
+				// fish; union holds the cover lines
+				final int bit = 1 << subsetValue;
+				for (int line = 0; line < size; line++) {
+					if (isSelectedKey(n, line))
+						continue;
+
+					int positions = union;
+					while (positions != 0) {
+						final int i = Integer.numberOfTrailingZeros(positions);
+						positions &= positions - 1;
+
+						final int cell = subsetRows ? line * size + i : i * size + line;
+						changed |= eliminate(cell, bit);
+					}
+				}
+				break;
+			}
+		}
+
+		return changed;
+	}
+
+	private boolean isSelectedKey(int n, int key) {
+		for (int i = 0; i < n; i++)
+			if (subsetKeys[selection[i]] == key)
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.grader;
+
+import com.googlecode.andoku.model.Difficulty;
+
+/**
+ * Solving techniques known to the {@link LogicalSolver}, in the order in which they are tried.
+ */
+public enum Technique {
+	HIDDEN_SINGLE(Difficulty.EASY),
+	NAKED_SINGLE(Difficulty.MEDIUM),
+	LOCKED_CANDIDATES(Difficulty.CHALLENGING),
+	NAKED_PAIR(Difficulty.CHALLENGING),
+	HIDDEN_PAIR(Difficulty.HARD),
+	NAKED_TRIPLE(Difficulty.HARD),
+	HIDDEN_TRIPLE(Difficulty.HARD),
+	X_WING(Difficulty.HARD),
+	NAKED_QUAD(Difficulty.FIENDISH),
+	HIDDEN_QUAD(Difficulty.FIENDISH),
+	SWORDFISH(Difficulty.FIENDISH),
+	JELLYFISH(Difficulty.FIENDISH);
+
+	private final Difficulty difficulty;
+
+	private Technique(Difficulty difficulty) {
+		this.difficulty = difficulty;
+	}
+
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+}
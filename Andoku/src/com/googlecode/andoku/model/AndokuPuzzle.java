@@ -37,9 +37,11 @@ import java.util.Set;
 
 import android.util.Log;
 
+import com.googlecode.andoku.solver.CancellationToken;
 import com.googlecode.andoku.solver.DlxPuzzleSolver;
 import com.googlecode.andoku.solver.PuzzleSolver;
 import com.googlecode.andoku.solver.SingleSolutionReporter;
+import com.googlecode.andoku.solver.SolveResult;
 import com.googlecode.andoku.transfer.StandardAreas;
 
 public class AndokuPuzzle {
@@ -62,6 +64,7 @@ public class AndokuPuzzle {
 
 	private Solution solution;
 	private boolean computeSolutionFailed = false;
+	private SolutionCache solutionCache;
 
 	private Integer numValuesSet;
 
@@ -76,6 +79,14 @@ public class AndokuPuzzle {
 	private boolean restored = false;
 
 	public AndokuPuzzle(String name, Puzzle puzzle, Difficulty difficulty) {
+		this(name, puzzle, difficulty, null);
+	}
+
+	/**
+	 * @param solution precomputed solution or <code>null</code>; a solution that does not solve
+	 *           the puzzle is ignored.
+	 */
+	public AndokuPuzzle(String name, Puzzle puzzle, Difficulty difficulty, Solution solution) {
 		if (puzzle == null)
 			throw new IllegalArgumentException();
 		if (difficulty == null)
@@ -92,6 +103,37 @@ public class AndokuPuzzle {
 		this.numberOfAreaColors = countNumberOfAreaColors();
 		this.regionErrors = new HashSet<RegionError>();
 		this.cellErrors = new HashSet<Position>();
+
+		if (solution != null) {
+			if (isSolution(puzzle, solution))
+				this.solution = solution;
+			else
+				Log.w(TAG, "Ignoring precomputed solution that does not solve " + name);
+		}
+	}
+
+	private static boolean isSolution(Puzzle puzzle, Solution solution) {
+		final int size = puzzle.getSize();
+
+		Puzzle check = new Puzzle(puzzle.getGeometry());
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				final int value = solution.getValue(row, col);
+				if (value < 0 || value >= size)
+					return false;
+
+				final int clue = puzzle.getValue(row, col);
+				if (clue != Puzzle.UNDEFINED && clue != value)
+					return false;
+
+				if ((check.getPossibleValuesMask(row, col) & 1 << value) == 0)
+					return false;
+
+				check.set(row, col, value);
+			}
+		}
+
+		return true;
 	}
 
 	private int countNumberOfAreaColors() {
@@ -248,25 +290,81 @@ public class AndokuPuzzle {
 		return solution != null;
 	}
 
+	/**
+	 * Sets a cache that is consulted before the solution gets computed and that receives computed
+	 * solutions.
+	 */
+	public void setSolutionCache(SolutionCache solutionCache) {
+		this.solutionCache = solutionCache;
+	}
+
 	public boolean computeSolution() {
+		computeSolution(0, null);
+		return solution != null;
+	}
+
+	/**
+	 * Tries to compute the solution of this puzzle within the given time budget. Use
+	 * {@link #hasSolution()} to find out if a solution has been found.
+	 * 
+	 * @param deadline value of {@link System#currentTimeMillis()} after which to give up or
+	 *           <code>0</code> for no deadline.
+	 * @param token cancellation token or <code>null</code>.
+	 * @return {@link SolveResult#COMPLETED} if the puzzle has a solution or is known to be invalid.
+	 */
+	public SolveResult computeSolution(long deadline, CancellationToken token) {
 		if (this.solution != null)
 			throw new IllegalStateException();
 
 		if (computeSolutionFailed)
-			return false;
+			return SolveResult.COMPLETED;
+
+		CanonicalForm form = solutionCache != null ? canonicalize(deadline, token) : null;
+		if (form != null) {
+			this.solution = solutionCache.get(form);
+			if (this.solution != null)
+				return SolveResult.COMPLETED;
+		}
 
 		SingleSolutionReporter reporter = new SingleSolutionReporter();
 		PuzzleSolver solver = new DlxPuzzleSolver();
-		solver.solve(problem, reporter);
+		SolveResult result = solver.solve(problem, reporter, deadline, token);
 
 		Puzzle solution = reporter.getSolution();
-		if (solution == null) {
-			computeSolutionFailed = true;
-			return false;
+		if (solution != null) {
+			this.solution = new Solution(solution);
+			if (form != null)
+				solutionCache.put(form, this.solution);
+			return SolveResult.COMPLETED;
 		}
 
-		this.solution = new Solution(solution);
-		return true;
+		// only remember the failure if the search was not cut off
+		if (result == SolveResult.COMPLETED)
+			computeSolutionFailed = true;
+
+		return result;
+	}
+
+	// returns null if the puzzle should bypass the solution cache
+	private CanonicalForm canonicalize(long deadline, CancellationToken token) {
+		// too sparse to have a unique solution and expensive to canonicalize
+		if (problem.getValuesCount() < 2 * problem.getSize() - 1)
+			return null;
+
+		// leave an exceeded deadline or a cancellation to the solver to report
+		if (deadline != 0 && System.currentTimeMillis() > deadline)
+			return null;
+		if (token != null && token.isCancelled())
+			return null;
+
+		try {
+			// null if the canonicalizer gives up
+			return new Canonicalizer().canonicalize(problem);
+		}
+		catch (IllegalArgumentException e) {
+			Log.w(TAG, "Puzzle cannot be cached", e);
+			return null;
+		}
 	}
 
 	public boolean isSolved() {
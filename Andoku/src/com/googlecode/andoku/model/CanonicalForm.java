@@ -0,0 +1,131 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+/**
+ * The canonical form of a puzzle as computed by {@link Canonicalizer}.
+ * 
+ * The fingerprint is a puzzle line in the format of <code>PuzzleDecoder</code> that is equal for
+ * all puzzles of the same equivalence class. The form also remembers the transformation that maps
+ * the original puzzle to the canonical one, so that values such as a solution can be moved between
+ * the two.
+ */
+public final class CanonicalForm {
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final String fingerprint;
+	private final int size;
+	private final int[] cellMap;
+	private final int[] valueMap;
+	private final int[] inverseValueMap;
+
+	/**
+	 * @param cellMap the original cell of every canonical cell.
+	 * @param valueMap the canonical value of every original value.
+	 */
+	CanonicalForm(String fingerprint, int size, int[] cellMap, int[] valueMap) {
+		this.fingerprint = fingerprint;
+		this.size = size;
+		this.cellMap = cellMap;
+		this.valueMap = valueMap;
+
+		inverseValueMap = new int[size];
+		for (int value = 0; value < size; value++)
+			inverseValueMap[valueMap[value]] = value;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns a 64 bit FNV-1a hash of the fingerprint.
+	 */
+	public long getHash() {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < fingerprint.length(); i++) {
+			hash ^= fingerprint.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Maps values of the original puzzle in row major order to the canonical puzzle.
+	 * {@link Puzzle#UNDEFINED} is kept as is.
+	 */
+	public int[] toCanonical(int[] values) {
+		checkLength(values);
+
+		int[] result = new int[values.length];
+		for (int cell = 0; cell < result.length; cell++) {
+			final int value = values[cellMap[cell]];
+			result[cell] = value == Puzzle.UNDEFINED ? value : valueMap[value];
+		}
+		return result;
+	}
+
+	/**
+	 * Maps values of the canonical puzzle in row major order back to the original puzzle.
+	 * {@link Puzzle#UNDEFINED} is kept as is.
+	 */
+	public int[] fromCanonical(int[] values) {
+		checkLength(values);
+
+		int[] result = new int[values.length];
+		for (int cell = 0; cell < result.length; cell++) {
+			final int value = values[cell];
+			result[cellMap[cell]] = value == Puzzle.UNDEFINED ? value : inverseValueMap[value];
+		}
+		return result;
+	}
+
+	private void checkLength(int[] values) {
+		if (values.length != size * size)
+			throw new IllegalArgumentException("Expected " + size * size + " values");
+	}
+
+	@Override
+	public int hashCode() {
+		return fingerprint.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return true;
+		if (!(obj instanceof CanonicalForm))
+			return false;
+
+		CanonicalForm other = (CanonicalForm) obj;
+		return fingerprint.equals(other.fingerprint);
+	}
+
+	@Override
+	public String toString() {
+		return fingerprint;
+	}
+}
@@ -0,0 +1,475 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.googlecode.andoku.transfer.StandardAreas;
+
+/**
+ * Maps puzzles to a canonical representative of their equivalence class.
+ * 
+ * Two puzzles are equivalent if one can be turned into the other by relabelling the digits and by
+ * a transformation of the grid that keeps the puzzle type. For standard 9x9 puzzles without extra
+ * regions these are all permutations of bands, stacks, rows within a band and columns within a
+ * stack, optionally combined with a transposition. All other puzzles are transformed by the eight
+ * rotations and reflections of the square, together with their areas; transformations that would
+ * turn the extra regions into a different pattern are skipped.
+ * 
+ * The representative is the transformation whose clues, read row by row with digits numbered in
+ * order of first appearance and empty cells first, are lexicographically smallest. The standard
+ * search proceeds row by row and only keeps the transformations that tie for the smallest prefix.
+ * Very sparse or highly symmetric grids tie on too many transformations; for these the search
+ * gives up instead of enumerating them.
+ * 
+ * Instances are not thread safe.
+ */
+public class Canonicalizer {
+	private static final int[][] PERMUTATIONS_3 = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 },
+			{ 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+
+	// all 1296 column orders that keep the stacks together
+	private static final int[][] COLUMN_ORDERS = createColumnOrders();
+
+	private static final char[] EXTRA_CODES = { 'X', 'H', 'P', 'C' };
+
+	// bounds the memory and time of the standard search; bundled puzzles need at most 5184
+	private static final int MAX_CANDIDATES = 16384;
+
+	// values of the standard puzzle, 0 for empty cells and value + 1 otherwise; [1] is transposed
+	private final int[][] grids = new int[2][81];
+
+	private List<Candidate> candidates = new ArrayList<Candidate>();
+	private List<Candidate> extended = new ArrayList<Candidate>();
+
+	// output row of the last evaluation and the smallest row of the current step
+	private final int[] row = new int[9];
+	private final int[] best = new int[9];
+	private final int[] rowLabels = new int[10];
+	private int rowNextLabel;
+
+	public Canonicalizer() {
+	}
+
+	/**
+	 * Returns the canonical form of the given puzzle or <code>null</code> if the puzzle ties on too
+	 * many transformations to be canonicalized with bounded effort.
+	 */
+	public CanonicalForm canonicalize(Puzzle puzzle) {
+		final Geometry geometry = puzzle.getGeometry();
+		final int size = geometry.getSize();
+
+		final char extraCode = getExtraCode(size, geometry.getExtraRegions());
+
+		if (size == 9 && extraCode == 0 && isStandardAreas(geometry))
+			return canonicalizeStandard(puzzle);
+		else
+			return canonicalizeSymmetric(puzzle, extraCode);
+	}
+
+	private CanonicalForm canonicalizeStandard(Puzzle puzzle) {
+		for (int r = 0; r < 9; r++) {
+			for (int c = 0; c < 9; c++) {
+				final int value = puzzle.getValue(r, c);
+				final int g = value == Puzzle.UNDEFINED ? 0 : value + 1;
+				grids[0][r * 9 + c] = g;
+				grids[1][c * 9 + r] = g;
+			}
+		}
+
+		candidates.clear();
+		for (int t = 0; t < 2; t++)
+			for (int[] columnOrder : COLUMN_ORDERS)
+				candidates.add(new Candidate(t, columnOrder));
+
+		for (int i = 0; i < 9; i++) {
+			extended.clear();
+			boolean found = false;
+
+			for (Candidate candidate : candidates) {
+				final int options = candidate.nextRows(i);
+				for (int r = 0; r < 9; r++) {
+					if ((options & 1 << r) == 0)
+						continue;
+
+					final int cmp = evaluate(candidate, r, found);
+					if (cmp > 0)
+						continue;
+
+					if (cmp < 0) {
+						System.arraycopy(row, 0, best, 0, 9);
+						extended.clear();
+						found = true;
+					}
+
+					extended.add(candidate.extend(i, r, rowLabels, rowNextLabel));
+					if (extended.size() > MAX_CANDIDATES) {
+						candidates.clear();
+						extended.clear();
+						return null;
+					}
+				}
+			}
+
+			List<Candidate> tmp = candidates;
+			candidates = extended;
+			extended = tmp;
+		}
+
+		final Candidate winner = candidates.get(0);
+
+		int[] cellMap = new int[81];
+		for (int i = 0; i < 9; i++)
+			for (int j = 0; j < 9; j++)
+				cellMap[i * 9 + j] = winner.t == 0 ? winner.rows[i] * 9 + winner.columns[j]
+						: winner.columns[j] * 9 + winner.rows[i];
+
+		int[] labels = winner.labels.clone();
+		return createForm(puzzle, 9, cellMap, labels, winner.nextLabel, "");
+	}
+
+	/**
+	 * Computes the output row for source row <code>r</code> and compares it with the best row if
+	 * there is one. Returns early with a positive result as soon as the row is known to be larger.
+	 */
+	private int evaluate(Candidate candidate, int r, boolean compare) {
+		System.arraycopy(candidate.labels, 0, rowLabels, 0, 10);
+		int nextLabel = candidate.nextLabel;
+
+		final int[] grid = grids[candidate.t];
+		final int[] columns = candidate.columns;
+		final int base = r * 9;
+
+		int cmp = compare ? 0 : -1;
+		for (int j = 0; j < 9; j++) {
+			int v = grid[base + columns[j]];
+			if (v != 0) {
+				if (rowLabels[v] == 0)
+					rowLabels[v] = ++nextLabel;
+				v = rowLabels[v];
+			}
+
+			row[j] = v;
+
+			if (cmp == 0) {
+				if (v < best[j])
+					cmp = -1;
+				else if (v > best[j])
+					return 1;
+			}
+		}
+
+		rowNextLabel = nextLabel;
+		return cmp;
+	}
+
+	private CanonicalForm canonicalizeSymmetric(Puzzle puzzle, char extraCode) {
+		final Geometry geometry = puzzle.getGeometry();
+		final int size = geometry.getSize();
+		final int cells = size * size;
+
+		final long[][] extraSets = extraCode == 0 ? new long[0][] : toBitSets(size, getExtraRegions(
+				size, extraCode));
+
+		int[] bestCellMap = null;
+		int[] bestLabels = null;
+		int bestNextLabel = 0;
+		String bestClues = null;
+		String bestAreas = null;
+
+		int[] cellMap = new int[cells];
+		for (int k = 0; k < 8; k++) {
+			for (int i = 0; i < size; i++)
+				for (int j = 0; j < size; j++)
+					cellMap[i * size + j] = transform(k, size, i, j);
+
+			if (!mapsExtraRegions(geometry, cellMap, extraSets))
+				continue;
+
+			int[] labels = new int[size + 1];
+			int nextLabel = 0;
+			StringBuilder clues = new StringBuilder(cells);
+			for (int cell = 0; cell < cells; cell++) {
+				final int source = cellMap[cell];
+				final int value = puzzle.getValue(source / size, source % size);
+				if (value == Puzzle.UNDEFINED) {
+					clues.append('.');
+				}
+				else {
+					if (labels[value + 1] == 0)
+						labels[value + 1] = ++nextLabel;
+					clues.append(encode(labels[value + 1] - 1));
+				}
+			}
+
+			String areas = normalizeAreas(geometry, cellMap);
+			String cluesString = clues.toString();
+
+			if (bestClues == null || cluesString.compareTo(bestClues) < 0
+					|| cluesString.equals(bestClues) && areas.compareTo(bestAreas) < 0) {
+				bestCellMap = cellMap.clone();
+				bestLabels = labels;
+				bestNextLabel = nextLabel;
+				bestClues = cluesString;
+				bestAreas = areas;
+			}
+		}
+
+		String suffix;
+		if (extraCode != 0)
+			suffix = "|" + bestAreas + "|" + extraCode;
+		else if (bestAreas.length() != 0)
+			suffix = "|" + bestAreas;
+		else
+			suffix = "";
+
+		return createForm(puzzle, size, bestCellMap, bestLabels, bestNextLabel, suffix);
+	}
+
+	private CanonicalForm createForm(Puzzle puzzle, int size, int[] cellMap, int[] labels,
+			int nextLabel, String suffix) {
+		// digits that do not appear in the clues get the remaining labels in increasing order
+		for (int value = 1; value <= size; value++)
+			if (labels[value] == 0)
+				labels[value] = ++nextLabel;
+
+		int[] valueMap = new int[size];
+		for (int value = 0; value < size; value++)
+			valueMap[value] = labels[value + 1] - 1;
+
+		StringBuilder sb = new StringBuilder(size * size + suffix.length());
+		for (int cell = 0; cell < size * size; cell++) {
+			final int source = cellMap[cell];
+			final int value = puzzle.getValue(source / size, source % size);
+			sb.append(value == Puzzle.UNDEFINED ? '.' : encode(valueMap[value]));
+		}
+		sb.append(suffix);
+
+		return new CanonicalForm(sb.toString(), size, cellMap, valueMap);
+	}
+
+	// original cell shown at canonical position (i, j) by rotation or reflection k
+	private static int transform(int k, int size, int i, int j) {
+		final int n = size - 1;
+		switch (k) {
+			case 0:
+				return i * size + j;
+			case 1:
+				return j * size + i;
+			case 2:
+				return (n - i) * size + j;
+			case 3:
+				return i * size + n - j;
+			case 4:
+				return (n - i) * size + n - j;
+			case 5:
+				return j * size + n - i;
+			case 6:
+				return (n - j) * size + i;
+			default:
+				return (n - j) * size + n - i;
+		}
+	}
+
+	/**
+	 * Returns the area codes of the transformed layout numbered in order of first appearance or an
+	 * empty string if the result equals the standard areas.
+	 */
+	private static String normalizeAreas(Geometry geometry, int[] cellMap) {
+		final int size = geometry.getSize();
+		final int[][] standard = StandardAreas.getAreas(size);
+
+		int[] codes = new int[size];
+		int[] standardCodes = new int[size];
+		for (int i = 0; i < size; i++) {
+			codes[i] = -1;
+			standardCodes[i] = -1;
+		}
+
+		int next = 0;
+		boolean isStandard = true;
+		StringBuilder sb = new StringBuilder(size * size);
+		for (int cell = 0; cell < size * size; cell++) {
+			final int source = cellMap[cell];
+			final int area = geometry.getAreaCode(source / size, source % size);
+			if (codes[area] == -1)
+				codes[area] = next++;
+
+			sb.append(encode(codes[area]));
+
+			// the standard areas are not numbered in order of first appearance for all sizes
+			final int standardCode = standard[cell / size][cell % size];
+			if (standardCodes[area] == -1)
+				standardCodes[area] = standardCode;
+			else if (standardCodes[area] != standardCode)
+				isStandard = false;
+		}
+
+		return isStandard ? "" : sb.toString();
+	}
+
+	private static boolean mapsExtraRegions(Geometry geometry, int[] cellMap, long[][] extraSets) {
+		if (extraSets.length == 0)
+			return true;
+
+		int[] inverse = new int[cellMap.length];
+		for (int cell = 0; cell < cellMap.length; cell++)
+			inverse[cellMap[cell]] = cell;
+
+		final int size = geometry.getSize();
+		for (ExtraRegion region : geometry.getExtraRegions()) {
+			long[] image = new long[2];
+			for (Position p : region.positions) {
+				final int cell = inverse[p.row * size + p.col];
+				image[cell >> 6] |= 1L << (cell & 63);
+			}
+
+			if (!contains(extraSets, image))
+				return false;
+		}
+
+		return true;
+	}
+
+	private static char getExtraCode(int size, ExtraRegion[] extraRegions) {
+		if (extraRegions.length == 0)
+			return 0;
+
+		long[][] sets = toBitSets(size, extraRegions);
+		for (char code : EXTRA_CODES) {
+			ExtraRegion[] known = getExtraRegions(size, code);
+			if (known != null && known.length == sets.length
+					&& containsAll(toBitSets(size, known), sets))
+				return code;
+		}
+
+		throw new IllegalArgumentException("Unsupported extra regions");
+	}
+
+	private static ExtraRegion[] getExtraRegions(int size, char code) {
+		switch (code) {
+			case 'X':
+				return ExtraRegions.x(size);
+			case 'H':
+				return size == 9 ? ExtraRegions.hyper(size) : null;
+			case 'P':
+				return size == 9 ? ExtraRegions.percent(size) : null;
+			default:
+				return size == 9 ? ExtraRegions.color(size) : null;
+		}
+	}
+
+	private static long[][] toBitSets(int size, ExtraRegion[] regions) {
+		long[][] sets = new long[regions.length][2];
+		for (int i = 0; i < regions.length; i++)
+			for (Position p : regions[i].positions) {
+				final int cell = p.row * size + p.col;
+				sets[i][cell >> 6] |= 1L << (cell & 63);
+			}
+		return sets;
+	}
+
+	private static boolean containsAll(long[][] sets, long[][] subsets) {
+		for (long[] subset : subsets)
+			if (!contains(sets, subset))
+				return false;
+		return true;
+	}
+
+	private static boolean contains(long[][] sets, long[] set) {
+		for (long[] s : sets)
+			if (s[0] == set[0] && s[1] == set[1])
+				return true;
+		return false;
+	}
+
+	private static boolean isStandardAreas(Geometry geometry) {
+		final int cells = geometry.getCellCount();
+		int[] identity = new int[cells];
+		for (int cell = 0; cell < cells; cell++)
+			identity[cell] = cell;
+		return normalizeAreas(geometry, identity).length() == 0;
+	}
+
+	private static char encode(int value) {
+		return (char) ('1' + value);
+	}
+
+	private static int[][] createColumnOrders() {
+		int[][] orders = new int[6 * 6 * 6 * 6][];
+		int idx = 0;
+		for (int[] stacks : PERMUTATIONS_3)
+			for (int[] p0 : PERMUTATIONS_3)
+				for (int[] p1 : PERMUTATIONS_3)
+					for (int[] p2 : PERMUTATIONS_3) {
+						int[][] within = { p0, p1, p2 };
+						int[] order = new int[9];
+						for (int k = 0; k < 3; k++)
+							for (int m = 0; m < 3; m++)
+								order[k * 3 + m] = stacks[k] * 3 + within[k][m];
+						orders[idx++] = order;
+					}
+		return orders;
+	}
+
+	/**
+	 * A transformation that is fixed for the output rows produced so far.
+	 */
+	private static final class Candidate {
+		final int t;
+		final int[] columns;
+		final int[] rows = new int[9];
+		final int[] labels = new int[10];
+		int nextLabel;
+		int usedRows;
+
+		Candidate(int t, int[] columns) {
+			this.t = t;
+			this.columns = columns;
+		}
+
+		/**
+		 * Returns the source rows that may become output row <code>i</code> as a bit mask: the
+		 * remaining rows of the current band or, at the start of a band, all rows of unused bands.
+		 */
+		int nextRows(int i) {
+			if (i % 3 != 0)
+				return 7 << rows[i - 1] / 3 * 3 & ~usedRows;
+
+			int options = 0;
+			for (int band = 0; band < 3; band++)
+				if ((usedRows & 7 << band * 3) == 0)
+					options |= 7 << band * 3;
+			return options;
+		}
+
+		Candidate extend(int i, int r, int[] rowLabels, int rowNextLabel) {
+			Candidate c = new Candidate(t, columns);
+			System.arraycopy(rows, 0, c.rows, 0, i);
+			c.rows[i] = r;
+			c.usedRows = usedRows | 1 << r;
+			System.arraycopy(rowLabels, 0, c.labels, 0, 10);
+			c.nextLabel = rowNextLabel;
+			return c;
+		}
+	}
+}
@@ -0,0 +1,383 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable layout of a puzzle: its areas, extra regions and the region and peer tables derived
+ * from them. Instances are interned by {@link #of(int[][], ExtraRegion[])} so that puzzles with the
+ * same layout share one geometry.
+ * 
+ * Cells are numbered <code>row * size + col</code>. Arrays returned by this class are shared and
+ * must not be modified.
+ */
+public final class Geometry {
+	private static final int MAX_INTERNED = 128;
+
+	private static final Map<Key, Geometry> INTERNED = new LinkedHashMap<Key, Geometry>(16, 0.75f,
+			true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Geometry> eldest) {
+			return size() > MAX_INTERNED;
+		}
+	};
+
+	private final Key key;
+
+	private final int size;
+	private final int[][] areaCodes;
+	private final ExtraRegion[] extraRegions;
+
+	private final Region[] regions;
+	private final Region[][][] regionsAt;
+
+	private final int[][] regionCells;
+	private final int[][] cellRegions;
+	private final int[][] peers;
+
+	private Geometry(Key key, int[][] areaCodes, ExtraRegion[] extraRegions) {
+		this.key = key;
+
+		size = areaCodes.length;
+		this.areaCodes = new int[size][];
+		for (int row = 0; row < size; row++)
+			this.areaCodes[row] = areaCodes[row].clone();
+		this.extraRegions = extraRegions.clone();
+
+		regions = createRegions();
+		regionsAt = initRegionsAt();
+
+		regionCells = initRegionCells();
+		cellRegions = initCellRegions();
+		peers = initPeers();
+	}
+
+	/**
+	 * Returns the geometry for the specified area codes and extra regions.
+	 * 
+	 * @throws IllegalArgumentException if the parameters do not describe a valid puzzle layout.
+	 */
+	public static Geometry of(int[][] areaCodes, ExtraRegion[] extraRegions) {
+		checkShape(areaCodes, extraRegions);
+
+		Key key = new Key(areaCodes, extraRegions);
+
+		synchronized (INTERNED) {
+			Geometry geometry = INTERNED.get(key);
+			if (geometry != null)
+				return geometry;
+		}
+
+		// only new layouts need the full check; interned ones have passed it before
+		checkParameters(areaCodes, extraRegions);
+
+		// build outside the lock; a concurrent build of the same geometry is harmless
+		Geometry geometry = new Geometry(key, areaCodes, extraRegions);
+
+		synchronized (INTERNED) {
+			Geometry existing = INTERNED.get(key);
+			if (existing != null)
+				return existing;
+
+			INTERNED.put(key, geometry);
+			return geometry;
+		}
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getCellCount() {
+		return size * size;
+	}
+
+	public int getAreaCode(int row, int col) {
+		return areaCodes[row][col];
+	}
+
+	public ExtraRegion[] getExtraRegions() {
+		return extraRegions;
+	}
+
+	public Region[] getRegions() {
+		return regions;
+	}
+
+	public Region[] getRegionsAt(int row, int col) {
+		return regionsAt[row][col];
+	}
+
+	/**
+	 * Returns the cells of the region with the specified id.
+	 */
+	public int[] getRegionCells(int regionId) {
+		return regionCells[regionId];
+	}
+
+	/**
+	 * Returns the ids of the regions the specified cell belongs to.
+	 */
+	public int[] getCellRegions(int cell) {
+		return cellRegions[cell];
+	}
+
+	/**
+	 * Returns all cells other than the specified cell that share a region with it.
+	 */
+	public int[] getPeers(int cell) {
+		return peers[cell];
+	}
+
+	@Override
+	public int hashCode() {
+		return key.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return true;
+		if (!(obj instanceof Geometry))
+			return false;
+
+		Geometry other = (Geometry) obj;
+		return key.equals(other.key);
+	}
+
+	private Region[] createRegions() {
+		List<Region> regions = new ArrayList<Region>();
+
+		int id = 0;
+
+		for (int row = 0; row < size; row++) {
+			List<Position> positions = new ArrayList<Position>();
+			for (int col = 0; col < size; col++)
+				positions.add(new Position(row, col));
+
+			regions.add(new Region(id++, Puzzle.REGION_TYPE_ROW, row, positions));
+		}
+
+		for (int col = 0; col < size; col++) {
+			List<Position> positions = new ArrayList<Position>();
+			for (int row = 0; row < size; row++)
+				positions.add(new Position(row, col));
+
+			regions.add(new Region(id++, Puzzle.REGION_TYPE_COLUMN, col, positions));
+		}
+
+		for (int areaCode = 0; areaCode < size; areaCode++) {
+			List<Position> positions = new ArrayList<Position>();
+			for (int row = 0; row < size; row++)
+				for (int col = 0; col < size; col++)
+					if (areaCodes[row][col] == areaCode)
+						positions.add(new Position(row, col));
+
+			regions.add(new Region(id++, Puzzle.REGION_TYPE_AREA, areaCode, positions));
+		}
+
+		for (int extraNumber = 0; extraNumber < extraRegions.length; extraNumber++) {
+			ExtraRegion extraRegion = extraRegions[extraNumber];
+			regions.add(new Region(id++, Puzzle.REGION_TYPE_EXTRA, extraNumber, extraRegion.positions));
+		}
+
+		return regions.toArray(new Region[regions.size()]);
+	}
+
+	private Region[][][] initRegionsAt() {
+		Map<Position, List<Region>> regionsAtMap = new HashMap<Position, List<Region>>();
+		for (Region region : regions) {
+			for (Position position : region.positions) {
+				List<Region> regionList = regionsAtMap.get(position);
+				if (regionList == null) {
+					regionList = new ArrayList<Region>();
+					regionsAtMap.put(position, regionList);
+				}
+				regionList.add(region);
+			}
+		}
+
+		Region[][][] regionsAt = new Region[size][size][];
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++) {
+				List<Region> regionsList = regionsAtMap.get(new Position(row, col));
+				regionsAt[row][col] = regionsList.toArray(new Region[regionsList.size()]);
+			}
+		return regionsAt;
+	}
+
+	private int[][] initRegionCells() {
+		int[][] regionCells = new int[regions.length][];
+		for (Region region : regions) {
+			int[] cells = new int[region.positions.length];
+			for (int i = 0; i < cells.length; i++)
+				cells[i] = region.positions[i].row * size + region.positions[i].col;
+
+			regionCells[region.id] = cells;
+		}
+		return regionCells;
+	}
+
+	private int[][] initCellRegions() {
+		int[][] cellRegions = new int[size * size][];
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++) {
+				Region[] regions = regionsAt[row][col];
+				int[] ids = new int[regions.length];
+				for (int i = 0; i < ids.length; i++)
+					ids[i] = regions[i].id;
+
+				cellRegions[row * size + col] = ids;
+			}
+		return cellRegions;
+	}
+
+	private int[][] initPeers() {
+		final int cells = size * size;
+
+		final boolean[] isPeer = new boolean[cells];
+		final int[] buffer = new int[cells];
+
+		int[][] peers = new int[cells][];
+		for (int cell = 0; cell < cells; cell++) {
+			int count = 0;
+			for (int region : cellRegions[cell])
+				for (int peer : regionCells[region])
+					if (peer != cell && !isPeer[peer]) {
+						isPeer[peer] = true;
+						buffer[count++] = peer;
+					}
+
+			int[] cellPeers = new int[count];
+			for (int i = 0; i < count; i++) {
+				cellPeers[i] = buffer[i];
+				isPeer[buffer[i]] = false;
+			}
+
+			peers[cell] = cellPeers;
+		}
+		return peers;
+	}
+
+	// the key flattens positions to row * size + col, so off-grid positions have to be rejected
+	// before the lookup or they could alias a valid interned layout
+	private static void checkShape(int[][] areaCodes, ExtraRegion[] extraRegions) {
+		int size = areaCodes.length;
+
+		if (size < 3 || size > ValueSet.MAX_SIZE)
+			throw new IllegalArgumentException("Invalid size: " + size);
+
+		for (int[] areaCodesRow : areaCodes)
+			if (areaCodesRow.length != size)
+				throw new IllegalArgumentException("Invalid number of area code columns");
+
+		for (ExtraRegion extraRegion : extraRegions)
+			for (Position position : extraRegion.positions)
+				if (position.row < 0 || position.col < 0 || position.row >= size
+						|| position.col >= size)
+					throw new IllegalArgumentException("Extra region position outside grid");
+	}
+
+	private static void checkParameters(int[][] areaCodes, ExtraRegion[] extraRegions) {
+		int size = areaCodes.length;
+
+		int[] counters = new int[size];
+		for (int[] areaCodesRow : areaCodes) {
+			for (int areaCode : areaCodesRow) {
+				if (areaCode < 0 || areaCode >= size)
+					throw new IllegalArgumentException("Invalid area code: " + areaCode);
+
+				counters[areaCode]++;
+			}
+		}
+
+		for (int i = 0; i < counters.length; i++)
+			if (counters[i] != size)
+				throw new IllegalArgumentException("Invalid number of " + i + "'s: " + counters[i]);
+
+		for (ExtraRegion extraRegion : extraRegions) {
+			if (extraRegion.positions.length != size)
+				throw new IllegalArgumentException("Invalid extra region size: "
+						+ extraRegion.positions.length);
+
+			if (new HashSet<Position>(Arrays.asList(extraRegion.positions)).size() != size)
+				throw new IllegalArgumentException("Invalid number of unique positions in extra region");
+		}
+	}
+
+	/**
+	 * Flattened area codes and extra region cells; cheap to build for lookups.
+	 */
+	private static final class Key {
+		private final int[] codes;
+		private final int hashCode;
+
+		public Key(int[][] areaCodes, ExtraRegion[] extraRegions) {
+			final int size = areaCodes.length;
+
+			int length = 1 + size * size;
+			for (ExtraRegion extraRegion : extraRegions)
+				length += 1 + extraRegion.positions.length;
+
+			codes = new int[length];
+
+			int idx = 0;
+			codes[idx++] = size;
+
+			for (int row = 0; row < size; row++)
+				for (int col = 0; col < size; col++)
+					codes[idx++] = areaCodes[row][col];
+
+			for (ExtraRegion extraRegion : extraRegions) {
+				codes[idx++] = -1; // separator
+				for (Position position : extraRegion.positions)
+					codes[idx++] = position.row * size + position.col;
+			}
+
+			hashCode = Arrays.hashCode(codes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+			return hashCode == other.hashCode && Arrays.equals(codes, other.codes);
+		}
+	}
+}
@@ -20,13 +20,6 @@
 
 package com.googlecode.andoku.model;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-
 public final class Puzzle {
 	public static final String REGION_TYPE_ROW = "row";
 	public static final String REGION_TYPE_COLUMN = "col";
@@ -35,137 +28,141 @@ public final class Puzzle {
 
 	public static final int UNDEFINED = -1;
 
-	private final int[][] areaCodes;
+	private final Geometry geometry;
 	private final int size;
-	private final ExtraRegion[] extraRegions;
 
-	private final Region[] regions;
-	private final Region[][][] regionsAt;
-	private final int[][] values;
-	private final ValueSet[][] eliminated;
+	// indexed by cell (row * size + col)
+	private final int[] values;
+	private final int[] eliminated;
+
+	// values present in each region, indexed by region id
+	private final int[] regionValues;
 
 	private int valuesCount;
 
 	public Puzzle(Puzzle other) {
-		this(other.areaCodes, other.extraRegions, false);
+		geometry = other.geometry;
+		size = other.size;
 
-		for (int row = 0; row < size; row++)
-			for (int col = 0; col < size; col++) {
-				int value = other.values[row][col];
-				if (value != UNDEFINED)
-					set(row, col, value);
+		values = other.values.clone();
+		eliminated = other.eliminated.clone();
+		regionValues = other.regionValues.clone();
 
-				eliminateValues(row, col, other.eliminated[row][col]);
-			}
+		valuesCount = other.valuesCount;
 	}
 
 	public Puzzle(int[][] areaCodes, ExtraRegion[] extraRegions) {
-		this(areaCodes, extraRegions, true);
+		this(Geometry.of(areaCodes, extraRegions));
 	}
 
-	private Puzzle(int[][] areaCodes, ExtraRegion[] extraRegions, boolean check) {
-		if (check)
-			checkParameters(areaCodes, extraRegions);
-
-		size = areaCodes.length;
-		this.areaCodes = areaCodes;
-		this.extraRegions = extraRegions;
+	public Puzzle(Geometry geometry) {
+		this.geometry = geometry;
+		size = geometry.getSize();
 
-		regions = createRegions();
-		regionsAt = initRegionsAt();
+		values = new int[size * size];
+		eliminated = new int[size * size];
+		regionValues = new int[geometry.getRegions().length];
 
-		values = new int[size][size];
-		eliminated = new ValueSet[size][size];
-		for (int row = 0; row < size; row++)
-			for (int col = 0; col < size; col++) {
-				values[row][col] = UNDEFINED;
-				eliminated[row][col] = new ValueSet();
-			}
+		for (int cell = 0; cell < values.length; cell++)
+			values[cell] = UNDEFINED;
 
 		valuesCount = 0;
 	}
 
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
 	public int getSize() {
 		return size;
 	}
 
 	public int getAreaCode(int row, int col) {
-		return areaCodes[row][col];
+		return geometry.getAreaCode(row, col);
 	}
 
 	public ExtraRegion[] getExtraRegions() {
-		return extraRegions;
+		return geometry.getExtraRegions();
 	}
 
 	public Region[] getRegions() {
-		return regions;
+		return geometry.getRegions();
 	}
 
 	public Region[] getRegionsAt(int row, int col) {
-		return regionsAt[row][col];
+		return geometry.getRegionsAt(row, col);
 	}
 
 	public void set(int row, int col, int value) {
-		assert values[row][col] == UNDEFINED;
+		final int cell = row * size + col;
+		assert values[cell] == UNDEFINED;
 
-		for (Region r : regionsAt[row][col])
-			r.values.add(value);
+		final int bit = 1 << value;
+		for (int region : geometry.getCellRegions(cell))
+			regionValues[region] |= bit;
 
-		values[row][col] = value;
+		values[cell] = value;
 
 		valuesCount++;
 	}
 
 	public void force(int row, int col, int value) {
-		if (values[row][col] != UNDEFINED)
+		final int cell = row * size + col;
+		if (values[cell] != UNDEFINED)
 			clear(row, col);
 
-		for (Region region : regionsAt[row][col]) {
-			for (Position position : region.positions) {
-				if (values[position.row][position.col] == value)
-					clear(position.row, position.col);
-			}
+		for (int peer : geometry.getPeers(cell)) {
+			if (values[peer] == value)
+				clear(peer / size, peer % size);
 		}
 
 		set(row, col, value);
 	}
 
 	public void clear(int row, int col) {
-		int value = values[row][col];
+		final int cell = row * size + col;
+		int value = values[cell];
 		assert value != UNDEFINED;
 
-		for (Region r : regionsAt[row][col])
-			r.values.remove(value);
+		final int mask = ~(1 << value);
+		for (int region : geometry.getCellRegions(cell))
+			regionValues[region] &= mask;
 
-		values[row][col] = UNDEFINED;
+		values[cell] = UNDEFINED;
 
 		valuesCount--;
 	}
 
 	public void eliminateValue(int row, int col, int value) {
-		eliminated[row][col].add(value);
+		eliminated[row * size + col] |= 1 << value;
 	}
 
 	public void eliminateValues(int row, int col, ValueSet values) {
-		eliminated[row][col].addAll(values);
+		eliminated[row * size + col] |= values.toInt();
 	}
 
 	public int getValue(int row, int col) {
-		return values[row][col];
+		return values[row * size + col];
 	}
 
 	public ValueSet getPossibleValues(int row, int col) {
-		if (values[row][col] != UNDEFINED)
-			return new ValueSet();
-
-		ValueSet values = ValueSet.all(size);
+		return new ValueSet(getPossibleValuesMask(row, col));
+	}
 
-		for (Region r : regionsAt[row][col])
-			values.removeAll(r.values);
+	/**
+	 * Returns the possible values of the specified cell as a bit mask in the format of
+	 * {@link ValueSet#toInt()}. Does not allocate.
+	 */
+	public int getPossibleValuesMask(int row, int col) {
+		final int cell = row * size + col;
+		if (values[cell] != UNDEFINED)
+			return 0;
 
-		values.removeAll(eliminated[row][col]);
+		int used = eliminated[cell];
+		for (int region : geometry.getCellRegions(cell))
+			used |= regionValues[region];
 
-		return values;
+		return ~used & ((1 << size) - 1);
 	}
 
 	public int getValuesCount() {
@@ -184,10 +181,11 @@ public final class Puzzle {
 
 		for (int row = 0; row < size; row++) {
 			for (int col = 0; col < size; col++) {
-				if (values[row][col] == UNDEFINED)
+				int value = values[row * size + col];
+				if (value == UNDEFINED)
 					sb.append('.');
 				else
-					sb.append((char) (values[row][col] + offset));
+					sb.append((char) (value + offset));
 			}
 			if (row < size - 1)
 				sb.append(' ');
@@ -195,103 +193,4 @@ public final class Puzzle {
 
 		return sb.toString();
 	}
-
-	private Region[] createRegions() {
-		List<Region> regions = new ArrayList<Region>();
-
-		int id = 0;
-
-		for (int row = 0; row < size; row++) {
-			List<Position> positions = new ArrayList<Position>();
-			for (int col = 0; col < size; col++)
-				positions.add(new Position(row, col));
-
-			regions.add(new Region(id++, REGION_TYPE_ROW, row, positions));
-		}
-
-		for (int col = 0; col < size; col++) {
-			List<Position> positions = new ArrayList<Position>();
-			for (int row = 0; row < size; row++)
-				positions.add(new Position(row, col));
-
-			regions.add(new Region(id++, REGION_TYPE_COLUMN, col, positions));
-		}
-
-		for (int areaCode = 0; areaCode < size; areaCode++) {
-			List<Position> positions = new ArrayList<Position>();
-			for (int row = 0; row < size; row++)
-				for (int col = 0; col < size; col++)
-					if (areaCodes[row][col] == areaCode)
-						positions.add(new Position(row, col));
-
-			regions.add(new Region(id++, REGION_TYPE_AREA, areaCode, positions));
-		}
-
-		for (int extraNumber = 0; extraNumber < extraRegions.length; extraNumber++) {
-			ExtraRegion extraRegion = extraRegions[extraNumber];
-			regions.add(new Region(id++, REGION_TYPE_EXTRA, extraNumber, extraRegion.positions));
-		}
-
-		return regions.toArray(new Region[regions.size()]);
-	}
-
-	private Region[][][] initRegionsAt() {
-		Map<Position, List<Region>> regionsAtMap = new HashMap<Position, List<Region>>();
-		for (Region region : regions) {
-			for (Position position : region.positions) {
-				List<Region> regionList = regionsAtMap.get(position);
-				if (regionList == null) {
-					regionList = new ArrayList<Region>();
-					regionsAtMap.put(position, regionList);
-				}
-				regionList.add(region);
-			}
-		}
-
-		Region[][][] regionsAt = new Region[size][size][];
-		for (int row = 0; row < size; row++)
-			for (int col = 0; col < size; col++) {
-				List<Region> regionsList = regionsAtMap.get(new Position(row, col));
-				regionsAt[row][col] = regionsList.toArray(new Region[regionsList.size()]);
-			}
-		return regionsAt;
-	}
-
-	private void checkParameters(int[][] areaCodes, ExtraRegion[] extraRegions) {
-		int size = areaCodes.length;
-
-		if (size < 3 || size > ValueSet.MAX_SIZE)
-			throw new IllegalArgumentException("Invalid size: " + size);
-
-		int[] counters = new int[size];
-		for (int[] areaCodesRow : areaCodes) {
-			if (areaCodesRow.length != size)
-				throw new IllegalArgumentException("Invalid number of area code columns");
-
-			for (int areaCode : areaCodesRow) {
-				if (areaCode < 0 || areaCode >= size)
-					throw new IllegalArgumentException("Invalid area code: " + areaCode);
-
-				counters[areaCode]++;
-			}
-		}
-
-		for (int i = 0; i < counters.length; i++)
-			if (counters[i] != size)
-				throw new IllegalArgumentException("Invalid number of " + i + "'s: " + counters[i]);
-
-		for (ExtraRegion extraRegion : extraRegions) {
-			if (extraRegion.positions.length != size)
-				throw new IllegalArgumentException("Invalid extra region size: "
-						+ extraRegion.positions.length);
-
-			if (new HashSet<Position>(Arrays.asList(extraRegion.positions)).size() != size)
-				throw new IllegalArgumentException("Invalid number of unique positions in extra region");
-
-			for (Position position : extraRegion.positions)
-				if (position.row < 0 || position.col < 0 || position.row >= size
-						|| position.col >= size)
-					throw new IllegalArgumentException("Extra region position outside grid");
-		}
-	}
 }
@@ -0,0 +1,151 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.util.Log;
+
+/**
+ * Caches puzzle solutions by canonical form, so that equivalent puzzles share a single entry. The
+ * solutions of the most recently used puzzles are kept in memory; all solutions are also written
+ * to an optional persistent {@link Store}.
+ * 
+ * Solutions are stored as strings of digits in the canonical representation. This class is thread
+ * safe if the store is.
+ */
+public class SolutionCache {
+	private static final String TAG = SolutionCache.class.getName();
+
+	public interface Store {
+		/**
+		 * Returns the solution saved for the given fingerprint or <code>null</code>.
+		 */
+		String loadSolution(long hash, String fingerprint);
+
+		void saveSolution(long hash, String fingerprint, String solution);
+	}
+
+	private final Store store;
+	private final Map<String, String> memory;
+
+	/**
+	 * @param capacity maximum number of solutions kept in memory.
+	 * @param store persistent store or <code>null</code>.
+	 */
+	public SolutionCache(final int capacity, Store store) {
+		if (capacity < 1)
+			throw new IllegalArgumentException();
+
+		this.store = store;
+		this.memory = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public Solution get(CanonicalForm form) {
+		final String fingerprint = form.getFingerprint();
+
+		String packed;
+		synchronized (memory) {
+			packed = memory.get(fingerprint);
+		}
+
+		if (packed == null && store != null) {
+			try {
+				packed = store.loadSolution(form.getHash(), fingerprint);
+			}
+			catch (RuntimeException e) {
+				Log.w(TAG, "Could not load solution", e);
+			}
+
+			if (packed == null)
+				return null;
+
+			synchronized (memory) {
+				memory.put(fingerprint, packed);
+			}
+		}
+
+		return packed == null ? null : unpack(form, packed);
+	}
+
+	public void put(CanonicalForm form, Solution solution) {
+		final String fingerprint = form.getFingerprint();
+		final String packed = pack(form, solution);
+
+		synchronized (memory) {
+			if (packed.equals(memory.put(fingerprint, packed)))
+				return;
+		}
+
+		if (store != null) {
+			try {
+				store.saveSolution(form.getHash(), fingerprint, packed);
+			}
+			catch (RuntimeException e) {
+				Log.w(TAG, "Could not save solution", e);
+			}
+		}
+	}
+
+	private static String pack(CanonicalForm form, Solution solution) {
+		final int size = form.getSize();
+
+		int[] values = new int[size * size];
+		for (int cell = 0; cell < values.length; cell++)
+			values[cell] = solution.getValue(cell / size, cell % size);
+
+		int[] canonical = form.toCanonical(values);
+
+		StringBuilder sb = new StringBuilder(canonical.length);
+		for (int value : canonical)
+			sb.append((char) ('1' + value));
+		return sb.toString();
+	}
+
+	private static Solution unpack(CanonicalForm form, String packed) {
+		final int size = form.getSize();
+		if (packed.length() != size * size)
+			return null;
+
+		int[] canonical = new int[packed.length()];
+		for (int cell = 0; cell < canonical.length; cell++) {
+			final int value = packed.charAt(cell) - '1';
+			if (value < 0 || value >= size)
+				return null;
+			canonical[cell] = value;
+		}
+
+		int[] values = form.fromCanonical(canonical);
+
+		int[][] solution = new int[size][size];
+		for (int cell = 0; cell < values.length; cell++)
+			solution[cell / size][cell % size] = values[cell];
+		return new Solution(solution);
+	}
+}
@@ -102,12 +102,7 @@ public final class ValueSet {
 	}
 
 	public int size() {
-		int count = 0;
-		for (int bit = 0; bit < MAX_SIZE; bit++) {
-			if ((values & 1 << bit) != 0)
-				count++;
-		}
-		return count;
+		return Integer.bitCount(values);
 	}
 
 	public boolean isEmpty() {
@@ -0,0 +1,379 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import java.util.Random;
+
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.ValueSet;
+
+/**
+ * Puzzle solver that keeps the candidates of each cell and the values used by each region as bit
+ * masks.
+ * 
+ * Naked and hidden singles are propagated through the peer tables of the puzzle {@link Geometry}
+ * before branching on the cell with the fewest candidates. Every recursion level works on its own
+ * copy of the masks so that backtracking needs no undo information.
+ */
+public class BitmaskPuzzleSolver implements PuzzleSolver {
+	private final Random random;
+
+	protected int size;
+	protected Puzzle puzzle;
+	private PuzzleReporter reporter;
+	private SearchLimit limit;
+
+	private int cellCount;
+	private int regionCount;
+	private Geometry geometry;
+
+	// search state per recursion level
+	private int[][] candidates;
+	private int[][] values;
+	private int[][] used;
+	private int[] unsolved;
+	private int[][] branchValues;
+
+	// cells that have been reduced to a single candidate
+	private int[] queue;
+	private int queueHead;
+	private int queueTail;
+
+	public BitmaskPuzzleSolver() {
+		this(null);
+	}
+
+	public BitmaskPuzzleSolver(Random random) {
+		this.random = random;
+	}
+
+	public void solve(Puzzle puzzle, PuzzleReporter reporter) {
+		solve(puzzle, reporter, 0, null);
+	}
+
+	public SolveResult solve(Puzzle puzzle, PuzzleReporter reporter, long deadline,
+			CancellationToken token) {
+		this.size = puzzle.getSize();
+		this.puzzle = new Puzzle(puzzle);
+		this.reporter = reporter;
+		this.limit = new SearchLimit(deadline, token);
+
+		init();
+
+		if (initState() && propagate(0))
+			search(0);
+
+		return limit.getResult();
+	}
+
+	private void init() {
+		geometry = puzzle.getGeometry();
+
+		// keep the buffers of the previous solve if they have the right dimensions
+		if (candidates != null && cellCount == geometry.getCellCount()
+				&& regionCount == geometry.getRegions().length)
+			return;
+
+		cellCount = geometry.getCellCount();
+		regionCount = geometry.getRegions().length;
+
+		final int levels = cellCount + 1;
+		candidates = new int[levels][];
+		values = new int[levels][];
+		used = new int[levels][];
+		unsolved = new int[levels];
+		branchValues = new int[levels][];
+
+		queue = new int[cellCount];
+	}
+
+	private boolean initState() {
+		if (candidates[0] == null) {
+			candidates[0] = new int[cellCount];
+			values[0] = new int[cellCount];
+			used[0] = new int[regionCount];
+		}
+
+		final int[] cand = candidates[0];
+		final int[] vals = values[0];
+		final int[] usedMasks = used[0];
+		unsolved[0] = cellCount;
+
+		for (int region = 0; region < regionCount; region++)
+			usedMasks[region] = 0;
+
+		final int all = ValueSet.all(size).toInt();
+
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++) {
+				final int cell = row * size + col;
+				vals[cell] = Puzzle.UNDEFINED;
+
+				// eliminated values only restrict cells that are not given
+				if (puzzle.getValue(row, col) == Puzzle.UNDEFINED)
+					cand[cell] = puzzle.getPossibleValuesMask(row, col);
+				else
+					cand[cell] = all;
+			}
+
+		queueHead = queueTail = 0;
+
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++) {
+				final int value = puzzle.getValue(row, col);
+				if (value != Puzzle.UNDEFINED && !assign(0, row * size + col, value))
+					return false; // conflicting clues
+			}
+
+		for (int cell = 0; cell < cellCount; cell++) {
+			if (vals[cell] != Puzzle.UNDEFINED)
+				continue;
+
+			final int c = cand[cell];
+			if (c == 0)
+				return false;
+			if ((c & c - 1) == 0)
+				queue[queueTail++] = cell;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Recursively solves the puzzle.
+	 * 
+	 * @return <code>true</code> if the calling recursion level should continue to find solutions,
+	 *         <code>false</code> otherwise.
+	 */
+	private boolean search(int level) {
+		if (unsolved[level] == 0)
+			return reportSolution(level);
+
+		final int cell = findNextCell(level);
+
+		int[] branch = branchValues[level];
+		if (branch == null)
+			branch = branchValues[level] = new int[size];
+
+		final int count = new ValueSet(candidates[level][cell]).getValues(branch);
+		if (random != null)
+			shuffle(branch, count);
+
+		final int next = level + 1;
+		for (int i = 0; i < count; i++) {
+			if (!limit.proceed())
+				return false;
+
+			copyState(level, next);
+
+			queueHead = queueTail = 0;
+			if (assign(next, cell, branch[i]) && propagate(next)) {
+				if (!search(next))
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the unsolved cell with the fewest candidates.
+	 */
+	private int findNextCell(int level) {
+		final int[] cand = candidates[level];
+		final int[] vals = values[level];
+
+		int minCount = Integer.MAX_VALUE;
+		int minCell = -1;
+
+		for (int cell = 0; cell < cellCount; cell++) {
+			if (vals[cell] != Puzzle.UNDEFINED)
+				continue;
+
+			final int count = Integer.bitCount(cand[cell]);
+			if (count == 2)
+				return cell;
+
+			if (count < minCount) {
+				minCount = count;
+				minCell = cell;
+			}
+		}
+
+		return minCell;
+	}
+
+	private void copyState(int from, int to) {
+		if (candidates[to] == null) {
+			candidates[to] = new int[cellCount];
+			values[to] = new int[cellCount];
+			used[to] = new int[regionCount];
+		}
+
+		System.arraycopy(candidates[from], 0, candidates[to], 0, cellCount);
+		System.arraycopy(values[from], 0, values[to], 0, cellCount);
+		System.arraycopy(used[from], 0, used[to], 0, regionCount);
+		unsolved[to] = unsolved[from];
+	}
+
+	/**
+	 * Places the value in the cell and removes it from the candidates of all peers.
+	 * 
+	 * @return <code>false</code> if this leads to a contradiction.
+	 */
+	private boolean assign(int level, int cell, int value) {
+		final int[] cand = candidates[level];
+		final int[] vals = values[level];
+		final int[] usedMasks = used[level];
+
+		final int bit = 1 << value;
+		if ((cand[cell] & bit) == 0)
+			return false;
+
+		final int[] regionIds = geometry.getCellRegions(cell);
+		for (int region : regionIds)
+			if ((usedMasks[region] & bit) != 0)
+				return false;
+
+		for (int region : regionIds)
+			usedMasks[region] |= bit;
+
+		vals[cell] = value;
+		cand[cell] = bit;
+		unsolved[level]--;
+
+		for (int peer : geometry.getPeers(cell)) {
+			int c = cand[peer];
+			if ((c & bit) == 0 || vals[peer] != Puzzle.UNDEFINED)
+				continue;
+
+			c &= ~bit;
+			cand[peer] = c;
+
+			if (c == 0)
+				return false;
+			if ((c & c - 1) == 0)
+				queue[queueTail++] = peer;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Assigns naked and hidden singles until none are left.
+	 * 
+	 * @return <code>false</code> if a contradiction has been found.
+	 */
+	private boolean propagate(int level) {
+		final int[] cand = candidates[level];
+		final int[] vals = values[level];
+		final int[] usedMasks = used[level];
+
+		final int all = (1 << size) - 1;
+
+		while (true) {
+			while (queueHead < queueTail) {
+				final int cell = queue[queueHead++];
+				if (vals[cell] == Puzzle.UNDEFINED
+						&& !assign(level, cell, Integer.numberOfTrailingZeros(cand[cell])))
+					return false;
+			}
+
+			if (unsolved[level] == 0)
+				return true;
+
+			boolean progress = false;
+
+			for (int region = 0; region < regionCount; region++) {
+				final int[] cells = geometry.getRegionCells(region);
+
+				int once = 0;
+				int twice = 0;
+				for (int cell : cells)
+					if (vals[cell] == Puzzle.UNDEFINED) {
+						final int c = cand[cell];
+						twice |= once & c;
+						once |= c;
+					}
+
+				if ((all & ~usedMasks[region] & ~once) != 0)
+					return false; // a value has no place left in this region
+
+				int hidden = once & ~twice;
+				while (hidden != 0) {
+					final int bit = hidden & -hidden;
+					hidden &= ~bit;
+
+					if ((usedMasks[region] & bit) != 0)
+						continue;
+
+					int target = -1;
+					for (int cell : cells)
+						if (vals[cell] == Puzzle.UNDEFINED && (cand[cell] & bit) != 0) {
+							target = cell;
+							break;
+						}
+
+					if (target == -1
+							|| !assign(level, target, Integer.numberOfTrailingZeros(bit)))
+						return false;
+
+					progress = true;
+				}
+			}
+
+			if (!progress && queueHead == queueTail)
+				return true;
+		}
+	}
+
+	private void shuffle(int[] values, int count) {
+		for (int i = count; i > 1; i--) {
+			int idx1 = i - 1;
+			int idx2 = random.nextInt(i);
+			int tmp = values[idx1];
+			values[idx1] = values[idx2];
+			values[idx2] = tmp;
+		}
+	}
+
+	private boolean reportSolution(int level) {
+		final int[] vals = values[level];
+
+		// the queue is idle while a solution is reported
+		int filled = 0;
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++)
+				if (puzzle.getValue(row, col) == Puzzle.UNDEFINED) {
+					final int cell = row * size + col;
+					puzzle.set(row, col, vals[cell]);
+					queue[filled++] = cell;
+				}
+
+		final boolean proceed = reporter.report(puzzle);
+
+		for (int i = 0; i < filled; i++)
+			puzzle.clear(queue[i] / size, queue[i] % size);
+
+		return proceed;
+	}
+}
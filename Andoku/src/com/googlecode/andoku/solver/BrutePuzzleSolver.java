@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
 
+import com.googlecode.andoku.model.Geometry;
 import com.googlecode.andoku.model.Position;
 import com.googlecode.andoku.model.Puzzle;
 
@@ -38,6 +39,8 @@ public class BrutePuzzleSolver implements PuzzleSolver {
 	private PuzzleReporter reporter;
 
 	private Set<Position> undefinedPositions;
+	private SearchLimit limit;
+	private SolverStatistics statistics;
 
 	public BrutePuzzleSolver() {
 		this(null);
@@ -47,24 +50,61 @@ public class BrutePuzzleSolver implements PuzzleSolver {
 		this.random = random;
 	}
 
+	/**
+	 * Sets a collector that is filled in by subsequent solves; <code>null</code> to disable.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+
 	public void solve(Puzzle puzzle, PuzzleReporter reporter) {
+		solve(puzzle, reporter, 0, null);
+	}
+
+	public SolveResult solve(Puzzle puzzle, PuzzleReporter reporter, long deadline,
+			CancellationToken token) {
 		this.size = puzzle.getSize();
 		this.puzzle = new Puzzle(puzzle);
 		this.reporter = reporter;
+		this.limit = new SearchLimit(deadline, token);
 
 		solve();
+
+		return limit.getResult();
 	}
 
 	private void solve() {
+		if (statistics != null)
+			statistics.reset();
+
+		if (hasConflictingClues())
+			return;
+
 		undefinedPositions = findUndefinedPositions();
 		if (undefinedPositions.isEmpty()) {
-			reportSolution(); // already solved
+			reportSolution(0); // already solved
 		}
 		else {
 			Position startPosition = removeNextPosition();
 
-			solve0(startPosition);
+			solve0(startPosition, 0);
+		}
+	}
+
+	private boolean hasConflictingClues() {
+		final Geometry geometry = puzzle.getGeometry();
+
+		for (int cell = 0; cell < size * size; cell++) {
+			final int value = puzzle.getValue(cell / size, cell % size);
+			if (value == Puzzle.UNDEFINED)
+				continue;
+
+			for (int peer : geometry.getPeers(cell))
+				if (puzzle.getValue(peer / size, peer % size) == value)
+					return true;
 		}
+
+		return false;
 	}
 
 	private Set<Position> findUndefinedPositions() {
@@ -85,27 +125,39 @@ public class BrutePuzzleSolver implements PuzzleSolver {
 	 * @return <code>true</code> if the calling recursion level should continue to find solutions,
 	 *         <code>false</code> otherwise.
 	 */
-	private boolean solve0(Position position) {
+	private boolean solve0(Position position, int depth) {
 		final int[] values = new int[puzzle.getSize()];
-		final int count = puzzle.getPossibleValues(position.row, position.col).getValues(values);
+
+		int possible = puzzle.getPossibleValuesMask(position.row, position.col);
+		int count = 0;
+		while (possible != 0) {
+			values[count++] = Integer.numberOfTrailingZeros(possible);
+			possible &= possible - 1;
+		}
+
+		if (statistics != null)
+			statistics.nodeEntered(depth, count);
 
 		if (random != null)
 			shuffle(values, count);
 
 		for (int i = 0; i < count; i++) {
+			if (!limit.proceed())
+				return false;
+
 			int value = values[i];
 
 			puzzle.set(position.row, position.col, value);
 
 			if (puzzle.isSolved()) {
-				if (!reportSolution())
+				if (!reportSolution(depth + 1))
 					return false;
 			}
 			else {
 				Position nextPosition = removeNextPosition();
 				assert nextPosition != null; // because not solved
 
-				if (!solve0(nextPosition))
+				if (!solve0(nextPosition, depth + 1))
 					return false;
 
 				undefinedPositions.add(nextPosition);
@@ -127,7 +179,10 @@ public class BrutePuzzleSolver implements PuzzleSolver {
 		}
 	}
 
-	private boolean reportSolution() {
+	private boolean reportSolution(int depth) {
+		if (statistics != null)
+			statistics.solutionFound(depth);
+
 		return reporter.report(puzzle);
 	}
 
@@ -150,7 +205,8 @@ public class BrutePuzzleSolver implements PuzzleSolver {
 		Position minPosition = null;
 
 		for (Position position : undefinedPositions) {
-			int numPossible = puzzle.getPossibleValues(position.row, position.col).size();
+			int numPossible = Integer.bitCount(puzzle.getPossibleValuesMask(position.row,
+					position.col));
 			if (numPossible <= 1)
 				return position;
 
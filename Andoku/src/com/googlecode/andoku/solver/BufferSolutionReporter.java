@@ -0,0 +1,94 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import com.googlecode.andoku.model.Puzzle;
+
+/**
+ * Puzzle reporter that writes the values of solutions into a caller supplied <code>int</code>
+ * array instead of copying the puzzle.
+ * 
+ * Solution <code>n</code> occupies the <code>size * size</code> entries starting at
+ * <code>n * size * size</code>, in row major order. Solutions that do not fit into the buffer are
+ * still counted. The search stops after <code>maxSolutions</code> solutions; a reporter with a
+ * buffer for one solution and a maximum of two solutions answers the same questions as
+ * {@link UniqueSolutionReporter}. Call {@link #reset()} to reuse the reporter for another puzzle.
+ */
+public final class BufferSolutionReporter implements PuzzleReporter {
+	private final int[] buffer;
+	private final int maxSolutions;
+
+	private long solutions;
+
+	/**
+	 * @param buffer receives the values of the solutions.
+	 * @param maxSolutions stop searching after this many solutions; <code>0</code> for no limit.
+	 */
+	public BufferSolutionReporter(int[] buffer, int maxSolutions) {
+		if (buffer == null)
+			throw new NullPointerException();
+		if (maxSolutions < 0)
+			throw new IllegalArgumentException("Invalid maximum number of solutions: " + maxSolutions);
+
+		this.buffer = buffer;
+		this.maxSolutions = maxSolutions;
+	}
+
+	public boolean report(Puzzle solution) {
+		final int size = solution.getSize();
+		final int cells = size * size;
+
+		if (solutions < buffer.length / cells) {
+			int offset = (int) solutions * cells;
+			for (int row = 0; row < size; row++)
+				for (int col = 0; col < size; col++)
+					buffer[offset++] = solution.getValue(row, col);
+		}
+
+		solutions++;
+
+		return maxSolutions == 0 || solutions < maxSolutions;
+	}
+
+	public void reset() {
+		solutions = 0;
+	}
+
+	public int[] getBuffer() {
+		return buffer;
+	}
+
+	public long getSolutionCount() {
+		return solutions;
+	}
+
+	public boolean hasSolution() {
+		return solutions > 0;
+	}
+
+	public boolean hasUniqueSolution() {
+		return solutions == 1;
+	}
+
+	public boolean hasMultipleSolutions() {
+		return solutions > 1;
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.googlecode.andoku.dlx.ArrayMatrix;
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+
+/**
+ * Caches pristine exact cover matrices by puzzle {@link Geometry}. The
+ * structure of the matrix does not depend on the clues so puzzles that share a layout can start
+ * from a copy of the same template.
+ * 
+ * Row <code>(row * size + col) * size + value</code> of a template places <code>value</code> at
+ * <code>row</code>, <code>col</code>.
+ */
+final class DlxMatrixTemplates {
+	private static final int MAX_TEMPLATES = 512;
+	// small because every entry keeps its geometry alive
+	private static final int MAX_SEEN = 512;
+
+	private static final Map<Geometry, ArrayMatrix> TEMPLATES = new LinkedHashMap<Geometry, ArrayMatrix>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Geometry, ArrayMatrix> eldest) {
+			return size() > MAX_TEMPLATES;
+		}
+	};
+
+	// geometries seen once that do not have a template yet; guarded by TEMPLATES
+	private static final Map<Geometry, Boolean> SEEN = new LinkedHashMap<Geometry, Boolean>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Geometry, Boolean> eldest) {
+			return size() > MAX_SEEN;
+		}
+	};
+
+	private DlxMatrixTemplates() {
+	}
+
+	/**
+	 * Returns the template matrix for the geometry of the specified puzzle. The returned matrix is
+	 * shared and must not be modified; copy it with {@link ArrayMatrix#copyFrom(ArrayMatrix)} or
+	 * {@link ArrayMatrix#ArrayMatrix(ArrayMatrix)} first.
+	 */
+	public static ArrayMatrix getTemplate(Puzzle puzzle) {
+		Geometry geometry = puzzle.getGeometry();
+
+		synchronized (TEMPLATES) {
+			ArrayMatrix template = TEMPLATES.get(geometry);
+			if (template != null)
+				return template;
+		}
+
+		return addTemplate(geometry);
+	}
+
+	/**
+	 * Creates a working copy of the template for the specified puzzle, reusing <code>matrix</code>
+	 * if possible.
+	 * 
+	 * A geometry gets a template only once it has been seen before. The first puzzle of a layout
+	 * gets a freshly built matrix so that collections of mostly unique squiggly layouts do not pay
+	 * for building and copying a template that is never used again.
+	 */
+	public static ArrayMatrix copyTemplate(Puzzle puzzle, ArrayMatrix matrix) {
+		Geometry geometry = puzzle.getGeometry();
+
+		ArrayMatrix template;
+		synchronized (TEMPLATES) {
+			template = TEMPLATES.get(geometry);
+			if (template == null && SEEN.put(geometry, Boolean.TRUE) == null)
+				return createMatrix(geometry);
+		}
+
+		if (template == null)
+			template = addTemplate(geometry);
+
+		if (matrix == null || matrix.getColumns() != template.getColumns())
+			return new ArrayMatrix(template);
+
+		matrix.copyFrom(template);
+		return matrix;
+	}
+
+	private static ArrayMatrix addTemplate(Geometry geometry) {
+		// build outside the lock; concurrent builds of the same template are harmless
+		ArrayMatrix template = createMatrix(geometry);
+
+		synchronized (TEMPLATES) {
+			SEEN.remove(geometry);
+
+			ArrayMatrix existing = TEMPLATES.get(geometry);
+			if (existing != null)
+				return existing;
+
+			TEMPLATES.put(geometry, template);
+			return template;
+		}
+	}
+
+	public static int rowIndex(int size, int row, int col, int value) {
+		return (row * size + col) * size + value;
+	}
+
+	/**
+	 * Eliminates the rows of the given clues of the puzzle from a copy of its template.
+	 * 
+	 * @return <code>false</code> if the clues conflict with each other.
+	 */
+	public static boolean eliminateGivenClues(Puzzle puzzle, ArrayMatrix m) {
+		final int size = puzzle.getSize();
+
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++) {
+				int value = puzzle.getValue(row, col);
+				if (value != Puzzle.UNDEFINED && !m.eliminateRow(rowIndex(size, row, col, value)))
+					return false;
+			}
+
+		return true;
+	}
+
+	/**
+	 * Places the value of the specified template row in the puzzle.
+	 */
+	public static void setValue(Puzzle puzzle, int row) {
+		final int size = puzzle.getSize();
+		final int cell = row / size;
+		puzzle.set(cell / size, cell % size, row % size);
+	}
+
+	/**
+	 * Clears the cell of the specified template row in the puzzle.
+	 */
+	public static void clearValue(Puzzle puzzle, int row) {
+		final int size = puzzle.getSize();
+		final int cell = row / size;
+		puzzle.clear(cell / size, cell % size);
+	}
+
+	private static ArrayMatrix createMatrix(Geometry geometry) {
+		final int size = geometry.getSize();
+		final int cells = geometry.getCellCount();
+
+		int maxRegionsAt = 0;
+		int nodes = 0;
+		for (int cell = 0; cell < cells; cell++) {
+			final int regionsAt = geometry.getCellRegions(cell).length;
+			maxRegionsAt = Math.max(maxRegionsAt, regionsAt);
+			nodes += (1 + regionsAt) * size;
+		}
+
+		ArrayMatrix m = new ArrayMatrix(cells + geometry.getRegions().length * size, cells * size,
+				nodes);
+
+		final int[] columns = new int[1 + maxRegionsAt];
+		for (int cell = 0; cell < cells; cell++) {
+			final int[] regionIds = geometry.getCellRegions(cell);
+
+			for (int v = 0; v < size; v++) {
+				columns[0] = cell;
+
+				for (int i = 0; i < regionIds.length; i++)
+					columns[i + 1] = cells + regionIds[i] * size + v;
+
+				m.addRow(columns, regionIds.length + 1);
+			}
+		}
+
+		m.enableSizeBuckets();
+
+		return m;
+	}
+}
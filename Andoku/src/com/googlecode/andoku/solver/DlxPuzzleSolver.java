@@ -23,6 +23,8 @@ package com.googlecode.andoku.solver;
 import java.util.Comparator;
 import java.util.Random;
 
+import com.googlecode.andoku.dlx.ArrayDlxListener;
+import com.googlecode.andoku.dlx.ArrayMatrix;
 import com.googlecode.andoku.dlx.Data;
 import com.googlecode.andoku.dlx.Header;
 import com.googlecode.andoku.dlx.DlxListener;
@@ -34,6 +36,10 @@ import com.googlecode.andoku.model.Region;
 
 /**
  * Puzzle solver that uses the Dancing Links (DLX) algorithm.
+ * 
+ * Without a random number generator the search runs on a copy of a cached {@link ArrayMatrix}
+ * template for the puzzle geometry. Randomized searches build an object based {@link Matrix} so
+ * that columns and rows can be shuffled.
  */
 public class DlxPuzzleSolver implements PuzzleSolver {
 	protected final Random random;
@@ -44,6 +50,11 @@ public class DlxPuzzleSolver implements PuzzleSolver {
 	private PuzzleReporter reporter;
 
 	private long updates;
+	private SearchLimit limit;
+	private SolverStatistics statistics;
+
+	// working copy of the template matrix; reused by subsequent solves
+	private ArrayMatrix arrayMatrix;
 
 	public DlxPuzzleSolver() {
 		this(null, 0);
@@ -62,21 +73,61 @@ public class DlxPuzzleSolver implements PuzzleSolver {
 		return updates;
 	}
 
+	/**
+	 * Sets a collector that is filled in by subsequent solves; <code>null</code> to disable.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+
 	public void solve(Puzzle puzzle, PuzzleReporter reporter) {
+		solve(puzzle, reporter, 0, null);
+	}
+
+	public SolveResult solve(Puzzle puzzle, PuzzleReporter reporter, long deadline,
+			CancellationToken token) {
 		this.size = puzzle.getSize();
 		this.puzzle = new Puzzle(puzzle);
 		this.reporter = reporter;
+		this.limit = new SearchLimit(deadline, token);
 
 		solve();
+
+		return limit.getResult();
 	}
 
 	protected void solve() {
+		updates = 0;
+
+		if (statistics != null)
+			statistics.reset();
+
+		if (random == null)
+			solveArrayMatrix();
+		else
+			solveObjectMatrix();
+	}
+
+	private void solveArrayMatrix() {
+		arrayMatrix = DlxMatrixTemplates.copyTemplate(puzzle, arrayMatrix);
+		if (!DlxMatrixTemplates.eliminateGivenClues(puzzle, arrayMatrix))
+			return; // conflicting clues
+
+		ArrayStrategy strategy = new ArrayStrategy();
+		Solver solver = new Solver(arrayMatrix, strategy);
+		solver.setObserver(statistics);
+		solver.search();
+	}
+
+	private void solveObjectMatrix() {
 		Matrix<RCV> m = createMatrix();
-		eliminateGivenClues(m);
+		if (!eliminateGivenClues(m))
+			return; // conflicting clues
 
-		updates = 0;
 		Strategy strategy = new Strategy();
-		new Solver(m, strategy, strategy, strategy).search();
+		Solver solver = new Solver(m, strategy, strategy, strategy);
+		solver.setObserver(statistics);
+		solver.search();
 	}
 
 	private Matrix<RCV> createMatrix() {
@@ -95,34 +146,70 @@ public class DlxPuzzleSolver implements PuzzleSolver {
 				m.addColumn(new Header(name, region));
 			}
 
+		// Matrix.addRow() does not keep a reference to the array so it can be reused
+		final boolean[] values = new boolean[m.getColumnCount()];
+
 		for (int row = 0; row < size; row++)
 			for (int col = 0; col < size; col++) {
 				Region[] regions = puzzle.getRegionsAt(row, col);
 
 				for (int v = 0; v < size; v++) {
-					boolean[] values = new boolean[m.getColumnCount()];
-
 					values[row * size + col] = true;
 
 					for (Region region : regions)
 						values[regionOffset + region.id * size + v] = true;
 
 					m.addRow(new RCV(row, col, v), values);
+
+					values[row * size + col] = false;
+
+					for (Region region : regions)
+						values[regionOffset + region.id * size + v] = false;
 				}
 			}
 
 		return m;
 	}
 
-	private void eliminateGivenClues(Matrix<RCV> m) {
+	private boolean eliminateGivenClues(Matrix<RCV> m) {
 		for (int row = 0; row < size; row++)
 			for (int col = 0; col < size; col++) {
 				int value = puzzle.getValue(row, col);
 				if (value != Puzzle.UNDEFINED) {
 					Data data = m.getRow(new RCV(row, col, value));
-					m.eliminateRow(data);
+					if (!m.eliminateRow(data))
+						return false;
 				}
 			}
+
+		return true;
+	}
+
+	private boolean proceed() {
+		if (++updates >= maxUpdates && maxUpdates != 0) {
+			limit.stop(SolveResult.UPDATE_LIMIT_EXCEEDED);
+			return false;
+		}
+
+		return limit.proceed();
+	}
+
+	private final class ArrayStrategy implements ArrayDlxListener {
+		public ArrayStrategy() {
+		}
+
+		public boolean select(int row) {
+			DlxMatrixTemplates.setValue(puzzle, row);
+			return proceed();
+		}
+
+		public void deselect(int row) {
+			DlxMatrixTemplates.clearValue(puzzle, row);
+		}
+
+		public boolean solutionFound() {
+			return reporter.report(puzzle);
+		}
 	}
 
 	private final class Strategy implements DlxListener, Comparator<Header>, RowSorter {
@@ -132,7 +219,7 @@ public class DlxPuzzleSolver implements PuzzleSolver {
 		public boolean select(Data row) {
 			RCV r = (RCV) row.getPayload();
 			puzzle.set(r.row, r.col, r.value);
-			return maxUpdates == 0 || ++updates < maxUpdates;
+			return proceed();
 		}
 
 		public void deselect(Data row) {
@@ -0,0 +1,194 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.googlecode.andoku.dlx.ArrayDlxListener;
+import com.googlecode.andoku.dlx.ArrayMatrix;
+import com.googlecode.andoku.dlx.Solver;
+import com.googlecode.andoku.model.Puzzle;
+
+/**
+ * Counts the solutions of a puzzle on multiple threads.
+ * 
+ * The DLX search tree is expanded up to a small depth and every open branch becomes a task that
+ * searches its own copy of the matrix. The split depth grows until there are enough tasks to keep
+ * all threads busy.
+ */
+public final class ParallelSolutionCounter {
+	private static final int TASKS_PER_THREAD = 8;
+	private static final int MAX_SPLIT_DEPTH = 8;
+
+	private ParallelSolutionCounter() {
+	}
+
+	/**
+	 * Counts the solutions of the specified puzzle.
+	 * 
+	 * @param puzzle puzzle to count the solutions of.
+	 * @param threads number of worker threads.
+	 * @param limit stop counting after this many solutions; <code>0</code> for no limit.
+	 * @return the number of solutions, at most <code>limit</code> if a limit is given.
+	 */
+	public static long count(Puzzle puzzle, int threads, long limit) throws InterruptedException {
+		if (threads < 1)
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		if (limit < 0)
+			throw new IllegalArgumentException("Invalid limit: " + limit);
+
+		final ArrayMatrix base = new ArrayMatrix(DlxMatrixTemplates.getTemplate(puzzle));
+		if (!DlxMatrixTemplates.eliminateGivenClues(puzzle, base))
+			return 0;
+
+		final AtomicLong counter = new AtomicLong();
+		List<int[]> branches = split(base, threads * TASKS_PER_THREAD, counter);
+
+		if (limit != 0 && counter.get() >= limit)
+			return limit;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(branches.size());
+			for (int[] branch : branches)
+				futures.add(executor.submit(new CountTask(base, branch, counter, limit)));
+
+			for (Future<Void> future : futures)
+				future.get();
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		final long count = counter.get();
+		return limit != 0 && count > limit ? limit : count;
+	}
+
+	/**
+	 * Returns the rows selected on the way to every open branch at the smallest depth that yields
+	 * at least <code>minBranches</code> branches. Solutions found above that depth are added to
+	 * <code>counter</code>.
+	 */
+	private static List<int[]> split(ArrayMatrix m, int minBranches, AtomicLong counter) {
+		List<int[]> branches = new ArrayList<int[]>();
+		int[] path = new int[MAX_SPLIT_DEPTH];
+
+		for (int depth = 1;; depth++) {
+			branches.clear();
+			long solutions = expand(m, path, 0, depth, branches);
+
+			if (branches.size() >= minBranches || branches.isEmpty() || depth == MAX_SPLIT_DEPTH) {
+				counter.addAndGet(solutions);
+				return branches;
+			}
+		}
+	}
+
+	private static long expand(ArrayMatrix m, int[] path, int depth, int maxDepth,
+			List<int[]> branches) {
+		if (m.getColumnCount() == 0)
+			return 1;
+
+		if (depth == maxDepth) {
+			int[] branch = new int[depth];
+			System.arraycopy(path, 0, branch, 0, depth);
+			branches.add(branch);
+			return 0;
+		}
+
+		long solutions = 0;
+
+		final int c = m.chooseColumn();
+		m.cover(c);
+
+		for (int r = m.down(c); r != c; r = m.down(r)) {
+			path[depth] = m.row(r);
+
+			for (int j = m.right(r); j != r; j = m.right(j))
+				m.cover(m.column(j));
+
+			solutions += expand(m, path, depth + 1, maxDepth, branches);
+
+			for (int j = m.left(r); j != r; j = m.left(j))
+				m.uncover(m.column(j));
+		}
+
+		m.uncover(c);
+
+		return solutions;
+	}
+
+	private static final class CountTask implements Callable<Void>, ArrayDlxListener {
+		private final ArrayMatrix base;
+		private final int[] branch;
+		private final AtomicLong counter;
+		private final long limit;
+
+		public CountTask(ArrayMatrix base, int[] branch, AtomicLong counter, long limit) {
+			this.base = base;
+			this.branch = branch;
+			this.counter = counter;
+			this.limit = limit;
+		}
+
+		public Void call() {
+			if (limit != 0 && counter.get() >= limit)
+				return null;
+
+			ArrayMatrix m = new ArrayMatrix(base);
+			for (int row : branch)
+				m.eliminateRow(row);
+
+			new Solver(m, this).search();
+			return null;
+		}
+
+		public boolean select(int row) {
+			// stop as soon as any worker has reached the limit
+			if (limit != 0 && counter.get() >= limit)
+				return false;
+
+			return !Thread.currentThread().isInterrupted();
+		}
+
+		public void deselect(int row) {
+		}
+
+		public boolean solutionFound() {
+			return counter.incrementAndGet() < limit || limit == 0;
+		}
+	}
+}
@@ -34,4 +34,18 @@ public interface PuzzleSolver {
 	 *           for.
 	 */
 	void solve(Puzzle puzzle, PuzzleReporter reporter);
+
+	/**
+	 * Solves the specified puzzle like {@link #solve(Puzzle, PuzzleReporter)} but gives up when the
+	 * deadline has passed or the cancellation token has been cancelled.
+	 * 
+	 * @param puzzle puzzle to solve.
+	 * @param reporter will be notified of solutions and decides if more solutions should be searched
+	 *           for.
+	 * @param deadline value of {@link System#currentTimeMillis()} after which the search should
+	 *           stop or <code>0</code> for no deadline.
+	 * @param token cancellation token or <code>null</code>.
+	 * @return whether the search finished or why it was cut off.
+	 */
+	SolveResult solve(Puzzle puzzle, PuzzleReporter reporter, long deadline, CancellationToken token);
 }
@@ -0,0 +1,76 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+/**
+ * Checks the deadline and cancellation token of a solve. The clock is only read every
+ * {@link #CHECK_INTERVAL} calls to {@link #proceed()} to keep the overhead per search node low.
+ */
+final class SearchLimit {
+	private static final int CHECK_INTERVAL = 1024;
+
+	private final long deadline;
+	private final CancellationToken token;
+
+	private int countdown = CHECK_INTERVAL;
+	private SolveResult result = SolveResult.COMPLETED;
+
+	/**
+	 * @param deadline value of {@link System#currentTimeMillis()} after which the search should
+	 *           stop or <code>0</code> for no deadline.
+	 * @param token cancellation token or <code>null</code>.
+	 */
+	public SearchLimit(long deadline, CancellationToken token) {
+		this.deadline = deadline;
+		this.token = token;
+	}
+
+	/**
+	 * Returns <code>false</code> if the search should stop.
+	 */
+	public boolean proceed() {
+		if (result != SolveResult.COMPLETED)
+			return false;
+
+		if (--countdown > 0)
+			return true;
+
+		countdown = CHECK_INTERVAL;
+
+		if (token != null && token.isCancelled())
+			result = SolveResult.CANCELLED;
+		else if (deadline != 0 && System.currentTimeMillis() >= deadline)
+			result = SolveResult.DEADLINE_EXCEEDED;
+
+		return result == SolveResult.COMPLETED;
+	}
+
+	/**
+	 * Records that the search has been stopped for another reason.
+	 */
+	public void stop(SolveResult reason) {
+		result = reason;
+	}
+
+	public SolveResult getResult() {
+		return result;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import com.googlecode.andoku.dlx.ArrayDlxListener;
+import com.googlecode.andoku.dlx.ArrayMatrix;
+import com.googlecode.andoku.dlx.IterativeSolver;
+import com.googlecode.andoku.dlx.SearchState;
+import com.googlecode.andoku.model.Puzzle;
+
+/**
+ * Enumerates the solutions of a puzzle one at a time. The enumeration can be paused after any
+ * solution, saved with {@link #getState()} and resumed later by passing that state together with
+ * the same puzzle to {@link #SolutionEnumerator(Puzzle, SearchState)}.
+ */
+public class SolutionEnumerator {
+	private final Puzzle puzzle;
+	private final IterativeSolver solver;
+
+	public SolutionEnumerator(Puzzle puzzle) {
+		this(puzzle, null);
+	}
+
+	public SolutionEnumerator(Puzzle puzzle, SearchState state) {
+		this.puzzle = new Puzzle(puzzle);
+
+		ArrayMatrix matrix = DlxMatrixTemplates.copyTemplate(puzzle, null);
+		if (!DlxMatrixTemplates.eliminateGivenClues(this.puzzle, matrix)) {
+			solver = null; // conflicting clues
+		}
+		else {
+			Strategy strategy = new Strategy();
+			solver = state == null ? new IterativeSolver(matrix, strategy) : new IterativeSolver(
+					matrix, strategy, state);
+		}
+	}
+
+	/**
+	 * Returns the next solution or <code>null</code> if there are no more solutions. The returned
+	 * puzzle is changed by the next call to this method.
+	 */
+	public Puzzle next() {
+		if (solver == null || solver.search())
+			return null;
+
+		return puzzle;
+	}
+
+	/**
+	 * Returns a snapshot from which the enumeration continues after the last solution returned by
+	 * {@link #next()}.
+	 */
+	public SearchState getState() {
+		if (solver == null)
+			throw new IllegalStateException("Puzzle has conflicting clues");
+
+		return solver.getState();
+	}
+
+	private final class Strategy implements ArrayDlxListener {
+		public Strategy() {
+		}
+
+		public boolean select(int row) {
+			DlxMatrixTemplates.setValue(puzzle, row);
+			return true;
+		}
+
+		public void deselect(int row) {
+			DlxMatrixTemplates.clearValue(puzzle, row);
+		}
+
+		public boolean solutionFound() {
+			return false;
+		}
+	}
+}
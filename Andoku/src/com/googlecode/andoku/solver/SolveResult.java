@@ -0,0 +1,35 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+/**
+ * Tells whether a puzzle solver searched to the end or was cut off.
+ */
+public enum SolveResult {
+	/** The search finished or was stopped by the puzzle reporter. */
+	COMPLETED,
+	/** The solver gave up after its maximum number of updates. */
+	UPDATE_LIMIT_EXCEEDED,
+	/** The deadline passed before the search finished. */
+	DEADLINE_EXCEEDED,
+	/** The cancellation token was cancelled before the search finished. */
+	CANCELLED
+}
@@ -0,0 +1,172 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import com.googlecode.andoku.dlx.SearchObserver;
+
+/**
+ * Collects statistics about a single search of a {@link DlxPuzzleSolver} or
+ * {@link BrutePuzzleSolver}. Set an instance on the solver before solving; the solver resets the
+ * statistics whenever it starts to solve a puzzle.
+ * 
+ * A node is a decision point of the search and its branching factor is the number of alternatives
+ * tried there: rows of the chosen column for DLX, possible values of the chosen cell for the brute
+ * force solver. A dead end is a node without alternatives. Covers and uncovers are column
+ * operations and are only counted by the DLX solver.
+ */
+public final class SolverStatistics implements SearchObserver {
+	/** Branching factors of this size or larger share the last histogram bucket. */
+	public static final int MAX_BRANCHES = 16;
+
+	private long nodes;
+	private long covers;
+	private long uncovers;
+	private long deadEnds;
+	private long solutions;
+	private int maxDepth;
+	private long[][] branching = new long[0][];
+
+	private long startNanos;
+	private long firstSolutionNanos;
+
+	public SolverStatistics() {
+		reset();
+	}
+
+	public void reset() {
+		nodes = 0;
+		covers = 0;
+		uncovers = 0;
+		deadEnds = 0;
+		solutions = 0;
+		maxDepth = 0;
+		for (long[] histogram : branching)
+			if (histogram != null)
+				for (int i = 0; i < histogram.length; i++)
+					histogram[i] = 0;
+
+		startNanos = System.nanoTime();
+		firstSolutionNanos = -1;
+	}
+
+	public void nodeEntered(int depth, int branches) {
+		nodes++;
+
+		if (depth > maxDepth)
+			maxDepth = depth;
+
+		if (branches == 0)
+			deadEnds++;
+
+		if (depth >= branching.length) {
+			long[][] tmp = new long[Math.max(depth + 1, branching.length * 2)][];
+			System.arraycopy(branching, 0, tmp, 0, branching.length);
+			branching = tmp;
+		}
+		if (branching[depth] == null)
+			branching[depth] = new long[MAX_BRANCHES + 1];
+
+		branching[depth][Math.min(branches, MAX_BRANCHES)]++;
+	}
+
+	public void columnsCovered(int count) {
+		covers += count;
+	}
+
+	public void columnsUncovered(int count) {
+		uncovers += count;
+	}
+
+	public void solutionFound(int depth) {
+		if (solutions++ == 0)
+			firstSolutionNanos = System.nanoTime() - startNanos;
+
+		if (depth > maxDepth)
+			maxDepth = depth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getCovers() {
+		return covers;
+	}
+
+	public long getUncovers() {
+		return uncovers;
+	}
+
+	public long getDeadEnds() {
+		return deadEnds;
+	}
+
+	public long getSolutions() {
+		return solutions;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Returns the time from the start of the solve to the first solution in nanoseconds or
+	 * <code>-1</code> if no solution has been found.
+	 */
+	public long getTimeToFirstSolution() {
+		return firstSolutionNanos;
+	}
+
+	/**
+	 * Returns how many nodes at the specified depth had a branching factor of <code>0</code>,
+	 * <code>1</code>, ... <code>MAX_BRANCHES</code> or more.
+	 */
+	public long[] getBranchingHistogram(int depth) {
+		long[] histogram = new long[MAX_BRANCHES + 1];
+		if (depth < branching.length && branching[depth] != null)
+			System.arraycopy(branching[depth], 0, histogram, 0, histogram.length);
+		return histogram;
+	}
+
+	/**
+	 * Returns the average branching factor of the nodes at the specified depth or <code>0</code> if
+	 * there are none.
+	 */
+	public double getAverageBranchingFactor(int depth) {
+		long[] histogram = getBranchingHistogram(depth);
+
+		long count = 0;
+		long sum = 0;
+		for (int branches = 0; branches < histogram.length; branches++) {
+			count += histogram[branches];
+			sum += branches * histogram[branches];
+		}
+
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	@Override
+	public String toString() {
+		return "nodes=" + nodes + ", covers=" + covers + ", uncovers=" + uncovers + ", deadEnds="
+				+ deadEnds + ", solutions=" + solutions + ", maxDepth=" + maxDepth
+				+ ", timeToFirstSolution=" + firstSolutionNanos + "ns";
+	}
+}
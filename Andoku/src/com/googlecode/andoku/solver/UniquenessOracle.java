@@ -0,0 +1,76 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.solver;
+
+import com.googlecode.andoku.model.Puzzle;
+
+/**
+ * Answers whether a puzzle keeps its unique solution when a single clue is removed.
+ * 
+ * The oracle knows the solution of the puzzle. After a clue is removed the known solution is
+ * still a solution, so the puzzle stays unique exactly if there is no solution with a different
+ * value in the freed cell. The oracle forbids the known value in that cell and stops at the first
+ * solution it finds, which is much cheaper than counting solutions up to two.
+ * 
+ * Instances are not thread safe.
+ */
+public final class UniquenessOracle {
+	private final Puzzle solution;
+	private final BitmaskPuzzleSolver solver = new BitmaskPuzzleSolver();
+	private final BufferSolutionReporter reporter = new BufferSolutionReporter(new int[0], 1);
+
+	/**
+	 * @param solution the unique solution of the puzzles that are going to be queried.
+	 */
+	public UniquenessOracle(Puzzle solution) {
+		if (!solution.isSolved())
+			throw new IllegalArgumentException("Not a solution");
+
+		this.solution = new Puzzle(solution);
+	}
+
+	public Puzzle getSolution() {
+		return solution;
+	}
+
+	/**
+	 * Checks if the specified puzzle still has a unique solution if the clue at the specified
+	 * position is removed. The puzzle must have the solution of this oracle as its unique solution;
+	 * it is not modified.
+	 */
+	public boolean isUniqueWithout(Puzzle puzzle, int row, int col) {
+		final int value = puzzle.getValue(row, col);
+		if (value == Puzzle.UNDEFINED)
+			throw new IllegalArgumentException("No clue at " + row + "x" + col);
+		if (value != solution.getValue(row, col))
+			throw new IllegalArgumentException("Clue at " + row + "x" + col
+					+ " does not match the solution");
+
+		Puzzle probe = new Puzzle(puzzle);
+		probe.clear(row, col);
+		probe.eliminateValue(row, col, value);
+
+		reporter.reset();
+		solver.solve(probe, reporter);
+
+		return !reporter.hasSolution();
+	}
+}
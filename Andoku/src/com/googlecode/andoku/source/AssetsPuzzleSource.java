@@ -20,57 +20,91 @@
 
 package com.googlecode.andoku.source;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import android.content.res.AssetManager;
 
 import com.googlecode.andoku.model.Difficulty;
 import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
 import com.googlecode.andoku.transfer.PuzzleDecoder;
 
+/**
+ * Reads puzzles from an .adk file in the assets. The file is scanned once per process to build
+ * an index of line offsets; loading a puzzle then reads and decodes only that line.
+ */
 class AssetsPuzzleSource implements PuzzleSource {
 	private static final String PUZZLES_FOLDER = "puzzles/";
 
+	// index by folder name; assets do not change while the application is running
+	private static final Map<String, int[]> INDEXES = new HashMap<String, int[]>();
+
 	private final AssetManager assets;
 	private final String folderName;
 
-	private final List<String> entries;
+	// start and end offset of every puzzle line
+	private final int[] index;
 
 	public AssetsPuzzleSource(AssetManager assets, String folderName) {
 		this.assets = assets;
 		this.folderName = folderName;
 
-		this.entries = loadEntries();
+		this.index = getIndex(assets, folderName);
+	}
+
+	private static int[] getIndex(AssetManager assets, String folderName) {
+		synchronized (INDEXES) {
+			int[] index = INDEXES.get(folderName);
+			if (index == null) {
+				index = buildIndex(assets, folderName);
+				INDEXES.put(folderName, index);
+			}
+			return index;
+		}
 	}
 
-	private List<String> loadEntries() {
-		List<String> entries = new ArrayList<String>(100);
+	private static int[] buildIndex(AssetManager assets, String folderName) {
+		int[] index = new int[200];
+		int count = 0;
 
 		try {
-			String puzzleFile = PUZZLES_FOLDER + folderName + ".adk";
-
-			InputStream in = assets.open(puzzleFile);
+			InputStream in = new BufferedInputStream(assets.open(getPuzzleFile(folderName)), 512);
 			try {
-				Reader reader = new InputStreamReader(in, "US-ASCII");
-				BufferedReader br = new BufferedReader(reader, 512);
+				int offset = 0;
+				int lineStart = 0;
+				boolean skipLine = false;
 				while (true) {
-					String line = br.readLine();
-					if (line == null)
-						break;
-
-					if (line.length() == 0 || line.startsWith("#"))
-						continue;
-						
-						entries.add(line);
+					int c = in.read();
+					if (c == -1 || c == '\n' || c == '\r') {
+						// empty lines and comments are skipped
+						if (offset > lineStart && !skipLine) {
+							if (count == index.length) {
+								int[] tmp = new int[count * 2];
+								System.arraycopy(index, 0, tmp, 0, count);
+								index = tmp;
+							}
+							index[count++] = lineStart;
+							index[count++] = offset;
+						}
+
+						if (c == -1)
+							break;
+
+						lineStart = offset + 1;
+						skipLine = false;
+					}
+					else if (offset == lineStart && c == '#') {
+						skipLine = true;
+					}
+
+					offset++;
 				}
-
-				return entries;
 			}
 			finally {
 				in.close();
@@ -79,6 +113,14 @@ class AssetsPuzzleSource implements PuzzleSource {
 		catch (IOException e) {
 			throw new AssetsPuzzleSourceException(e);
 		}
+
+		int[] result = new int[count];
+		System.arraycopy(index, 0, result, 0, count);
+		return result;
+	}
+
+	private static String getPuzzleFile(String folderName) {
+		return PUZZLES_FOLDER + folderName + ".adk";
 	}
 
 	public String getSourceId() {
@@ -86,15 +128,53 @@ class AssetsPuzzleSource implements PuzzleSource {
 	}
 
 	public int numberOfPuzzles() {
-		return entries.size();
+		return index.length / 2;
 	}
 
 	public PuzzleHolder load(int number) {
-		String puzzleStr = entries.get(number);
+		byte[] line = readEntry(number);
+
+		Puzzle puzzle = PuzzleDecoder.decode(line, 0, line.length);
+		Solution solution = PuzzleDecoder.decodeSolution(line, 0, line.length);
+
+		return new PuzzleHolder(this, number, null, puzzle, getDifficulty(), solution);
+	}
+
+	private byte[] readEntry(int number) {
+		if (number < 0 || number >= numberOfPuzzles())
+			throw new IndexOutOfBoundsException("Puzzle " + number + " not found in " + folderName);
 
-		Puzzle puzzle = PuzzleDecoder.decode(puzzleStr);
+		final int start = index[2 * number];
+		final int end = index[2 * number + 1];
 
-		return new PuzzleHolder(this, number, null, puzzle, getDifficulty());
+		try {
+			InputStream in = assets.open(getPuzzleFile(folderName));
+			try {
+				skipFully(in, start);
+
+				byte[] line = new byte[end - start];
+				new DataInputStream(in).readFully(line);
+				return line;
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			throw new AssetsPuzzleSourceException(e);
+		}
+	}
+
+	static void skipFully(InputStream in, long bytes) throws IOException {
+		while (bytes > 0) {
+			long skipped = in.skip(bytes);
+			if (skipped <= 0) {
+				if (in.read() == -1)
+					throw new EOFException();
+				skipped = 1;
+			}
+			bytes -= skipped;
+		}
 	}
 
 	private Difficulty getDifficulty() {
@@ -24,6 +24,7 @@ import com.googlecode.andoku.db.AndokuDatabase;
 import com.googlecode.andoku.db.PuzzleInfo;
 import com.googlecode.andoku.model.Difficulty;
 import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
 import com.googlecode.andoku.transfer.PuzzleDecoder;
 
 class DbPuzzleSource implements PuzzleSource {
@@ -50,8 +51,9 @@ class DbPuzzleSource implements PuzzleSource {
 		String name = puzzleInfo.getName();
 		Puzzle puzzle = createPuzzle(puzzleInfo);
 		Difficulty difficulty = puzzleInfo.getDifficulty();
+		Solution solution = createSolution(puzzleInfo);
 
-		return new PuzzleHolder(this, number, name, puzzle, difficulty);
+		return new PuzzleHolder(this, number, name, puzzle, difficulty, solution);
 	}
 
 	public int numberOfPuzzles() {
@@ -69,4 +71,12 @@ class DbPuzzleSource implements PuzzleSource {
 		return PuzzleDecoder.decode(puzzleInfo.getClues() + "|" + puzzleInfo.getAreas() + "|"
 				+ puzzleInfo.getExtraRegions());
 	}
+
+	private Solution createSolution(PuzzleInfo puzzleInfo) {
+		String solution = puzzleInfo.getSolution();
+		if (solution.length() == 0)
+			return null;
+
+		return PuzzleDecoder.decodeValues(solution);
+	}
 }
@@ -0,0 +1,61 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.source;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.googlecode.andoku.transfer.PuzzlePack;
+
+/**
+ * Reads puzzles from a memory mapped binary puzzle pack.
+ */
+class PackedPuzzleSource implements PuzzleSource {
+	private final String name;
+	private final PuzzlePack pack;
+
+	public PackedPuzzleSource(File file, String name) {
+		this.name = name;
+
+		try {
+			this.pack = PuzzlePack.open(file);
+		}
+		catch (IOException e) {
+			throw new PackedPuzzleSourceException(e);
+		}
+	}
+
+	public String getSourceId() {
+		return PuzzleSourceIds.forPack(name);
+	}
+
+	public int numberOfPuzzles() {
+		return pack.getCount();
+	}
+
+	public PuzzleHolder load(int number) {
+		return new PuzzleHolder(this, number, null, pack.getPuzzle(number), pack
+				.getDifficulty(number), pack.getSolution(number));
+	}
+
+	public void close() {
+	}
+}
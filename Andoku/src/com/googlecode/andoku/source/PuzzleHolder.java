@@ -23,6 +23,7 @@ package com.googlecode.andoku.source;
 import com.googlecode.andoku.db.PuzzleId;
 import com.googlecode.andoku.model.Difficulty;
 import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
 
 public class PuzzleHolder {
 	private final PuzzleSource source;
@@ -31,9 +32,18 @@ public class PuzzleHolder {
 	private final String name;
 	private final Puzzle puzzle;
 	private final Difficulty difficulty;
+	private final Solution solution;
 
 	public PuzzleHolder(PuzzleSource source, int number, String name, Puzzle puzzle,
 			Difficulty difficulty) {
+		this(source, number, name, puzzle, difficulty, null);
+	}
+
+	/**
+	 * @param solution precomputed solution or <code>null</code>.
+	 */
+	public PuzzleHolder(PuzzleSource source, int number, String name, Puzzle puzzle,
+			Difficulty difficulty, Solution solution) {
 		if (source == null)
 			throw new IllegalArgumentException();
 		if (puzzle == null)
@@ -46,6 +56,7 @@ public class PuzzleHolder {
 		this.name = name;
 		this.puzzle = puzzle;
 		this.difficulty = difficulty;
+		this.solution = solution;
 	}
 
 	public PuzzleSource getSource() {
@@ -71,4 +82,8 @@ public class PuzzleHolder {
 	public Difficulty getDifficulty() {
 		return difficulty;
 	}
+
+	public Solution getSolution() {
+		return solution;
+	}
 }
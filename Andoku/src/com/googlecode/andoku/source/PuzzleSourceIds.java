@@ -24,6 +24,7 @@ public class PuzzleSourceIds {
 	private static final char SEPARATOR = ':';
 	private static final String ASSET_PREFIX = "asset" + SEPARATOR;
 	private static final String DB_PREFIX = "db" + SEPARATOR;
+	private static final String PACK_PREFIX = "pack" + SEPARATOR;
 
 	private PuzzleSourceIds() {
 	}
@@ -36,6 +37,10 @@ public class PuzzleSourceIds {
 		return DB_PREFIX + folderId;
 	}
 
+	public static String forPack(String packName) {
+		return PACK_PREFIX + packName;
+	}
+
 	public static boolean isAssetSource(String puzzleSourceId) {
 		return puzzleSourceId.startsWith(ASSET_PREFIX);
 	}
@@ -51,4 +56,12 @@ public class PuzzleSourceIds {
 	public static long getDbFolderId(String puzzleSourceId) {
 		return Long.parseLong(puzzleSourceId.substring(DB_PREFIX.length()));
 	}
+
+	public static boolean isPackSource(String puzzleSourceId) {
+		return puzzleSourceId.startsWith(PACK_PREFIX);
+	}
+
+	public static String getPackName(String puzzleSourceId) {
+		return puzzleSourceId.substring(PACK_PREFIX.length());
+	}
 }
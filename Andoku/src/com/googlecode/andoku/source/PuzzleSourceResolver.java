@@ -20,12 +20,17 @@
 
 package com.googlecode.andoku.source;
 
+import java.io.File;
+
 import android.content.Context;
 import android.content.res.AssetManager;
 
 import com.googlecode.andoku.db.AndokuDatabase;
 
 public class PuzzleSourceResolver {
+	private static final String PACKS_DIR = "packs";
+	private static final String PACK_EXTENSION = ".adp";
+
 	private PuzzleSourceResolver() {
 	}
 
@@ -36,6 +41,9 @@ public class PuzzleSourceResolver {
 		if (PuzzleSourceIds.isDbSource(puzzleSourceId))
 			return resolveDbSource(context, PuzzleSourceIds.getDbFolderId(puzzleSourceId));
 
+		if (PuzzleSourceIds.isPackSource(puzzleSourceId))
+			return resolvePackSource(context, PuzzleSourceIds.getPackName(puzzleSourceId));
+
 		throw new IllegalArgumentException(puzzleSourceId);
 	}
 
@@ -48,4 +56,10 @@ public class PuzzleSourceResolver {
 		AndokuDatabase db = new AndokuDatabase(context);
 		return new DbPuzzleSource(db, folderId);
 	}
+
+	// packs live in the private "packs" directory of the application
+	private static PuzzleSource resolvePackSource(Context context, String packName) {
+		File dir = context.getDir(PACKS_DIR, Context.MODE_PRIVATE);
+		return new PackedPuzzleSource(new File(dir, packName + PACK_EXTENSION), packName);
+	}
 }
@@ -22,39 +22,57 @@ package com.googlecode.andoku.transfer;
 
 import com.googlecode.andoku.model.ExtraRegion;
 import com.googlecode.andoku.model.ExtraRegions;
+import com.googlecode.andoku.model.Geometry;
 import com.googlecode.andoku.model.Puzzle;
 import com.googlecode.andoku.model.Solution;
 
+/**
+ * Decodes puzzles in the format <code>clues|areas|extra|solution</code> where all but the clues are
+ * optional. Fields are located by scanning for the separator, so no intermediate strings are
+ * created. Geometries of standard area layouts are cached by size and extra regions.
+ */
 public class PuzzleDecoder {
+	private static final char SEPARATOR = '|';
+
+	private static final String EXTRA_CODES = "XHPC";
+
+	// [size][extra regions: none or index in EXTRA_CODES + 1]
+	private static final Geometry[][] STANDARD_GEOMETRIES = new Geometry[10][1 + EXTRA_CODES
+			.length()];
+
 	private PuzzleDecoder() {
 	}
 
-	// format: clues|areas|x
-	public static Puzzle decode(String puzzleStr) {
-		String[] parts = puzzleStr.split("\\|");
-		if (parts.length == 0)
-			throw new IllegalArgumentException();
+	public static Puzzle decode(CharSequence puzzleStr) {
+		final int length = puzzleStr.length();
 
-		String clues = parts[0];
-		String areas = parts.length > 1 ? parts[1] : "";
-		String extra = parts.length > 2 ? parts[2] : "";
+		final int cluesEnd = indexOfSeparator(puzzleStr, 0);
+		final int areasEnd = indexOfSeparator(puzzleStr, Math.min(cluesEnd + 1, length));
+		final int extraEnd = indexOfSeparator(puzzleStr, Math.min(areasEnd + 1, length));
 
-		int size = (int) Math.sqrt(clues.length());
-		if (clues.length() != size * size)
+		final int cluesLength = cluesEnd;
+		int size = (int) Math.sqrt(cluesLength);
+		if (cluesLength != size * size)
 			throw new IllegalArgumentException();
 
 		if (size < 5 || size > 9)
 			throw new IllegalArgumentException();
 
-		int[][] areaCodes = parseAreaCodes(size, areas);
-		ExtraRegion[] extraRegions = parseExtraRegions(size, extra);
+		final int areasStart = Math.min(cluesEnd + 1, length);
+		final int extraStart = Math.min(areasEnd + 1, length);
+
+		final int extra = parseExtraRegionsCode(puzzleStr, extraStart, extraEnd);
+		final Geometry geometry = areasStart == areasEnd
+				? getStandardGeometry(size, extra)
+				: Geometry.of(parseAreaCodes(size, puzzleStr, areasStart, areasEnd),
+						getExtraRegions(size, extra));
 
-		Puzzle puzzle = new Puzzle(areaCodes, extraRegions);
+		Puzzle puzzle = new Puzzle(geometry);
 
 		int idx = 0;
 		for (int row = 0; row < size; row++) {
 			for (int col = 0; col < size; col++) {
-				char clueChar = clues.charAt(idx++);
+				char clueChar = puzzleStr.charAt(idx++);
 				if (clueChar == ' ' || clueChar == '.')
 					continue;
 
@@ -69,7 +87,46 @@ public class PuzzleDecoder {
 		return puzzle;
 	}
 
-	public static Solution decodeValues(String values) {
+	/**
+	 * Decodes the US-ASCII encoded puzzle in the given part of <code>buffer</code>.
+	 */
+	public static Puzzle decode(byte[] buffer, int offset, int length) {
+		return decode(new AsciiSequence(buffer, offset, length));
+	}
+
+	/**
+	 * Returns the solution in the optional fourth field of the given puzzle string or
+	 * <code>null</code> if there is none.
+	 */
+	public static Solution decodeSolution(CharSequence puzzleStr) {
+		final int length = puzzleStr.length();
+
+		final int cluesEnd = indexOfSeparator(puzzleStr, 0);
+		final int areasEnd = indexOfSeparator(puzzleStr, Math.min(cluesEnd + 1, length));
+		final int extraEnd = indexOfSeparator(puzzleStr, Math.min(areasEnd + 1, length));
+
+		final int start = Math.min(extraEnd + 1, length);
+		final int end = indexOfSeparator(puzzleStr, start);
+		if (start == end)
+			return null;
+
+		if (end - start != cluesEnd)
+			throw new IllegalArgumentException();
+
+		for (int i = start; i < end; i++) {
+			char c = puzzleStr.charAt(i);
+			if (c == '.' || c == ' ')
+				throw new IllegalArgumentException();
+		}
+
+		return decodeValues(puzzleStr.subSequence(start, end));
+	}
+
+	public static Solution decodeSolution(byte[] buffer, int offset, int length) {
+		return decodeSolution(new AsciiSequence(buffer, offset, length));
+	}
+
+	public static Solution decodeValues(CharSequence values) {
 		int size = (int) Math.sqrt(values.length());
 		if (values.length() != size * size)
 			throw new IllegalArgumentException();
@@ -99,18 +156,15 @@ public class PuzzleDecoder {
 		return new Solution(result);
 	}
 
-	private static int[][] parseAreaCodes(int size, String areas) {
-		if (areas.length() == 0)
-			return StandardAreas.getAreas(size);
-
-		if (areas.length() != size * size)
+	private static int[][] parseAreaCodes(int size, CharSequence puzzleStr, int start, int end) {
+		if (end - start != size * size)
 			throw new IllegalArgumentException();
 
-		int idx = 0;
+		int idx = start;
 		int[][] areaCodes = new int[size][size];
 		for (int row = 0; row < size; row++) {
 			for (int col = 0; col < size; col++) {
-				char areaChar = areas.charAt(idx++);
+				char areaChar = puzzleStr.charAt(idx++);
 				int areaCode = decode(areaChar);
 				if (areaCode < 0 || areaCode >= size)
 					throw new IllegalArgumentException();
@@ -122,7 +176,43 @@ public class PuzzleDecoder {
 		return areaCodes;
 	}
 
-	private static ExtraRegion[] parseExtraRegions(int size, String extra) {
+	private static int indexOfSeparator(CharSequence puzzleStr, int start) {
+		final int length = puzzleStr.length();
+		for (int i = start; i < length; i++)
+			if (puzzleStr.charAt(i) == SEPARATOR)
+				return i;
+		return length;
+	}
+
+	private static int parseExtraRegionsCode(CharSequence puzzleStr, int start, int end) {
+		if (start == end)
+			return 0;
+
+		if (end - start == 1) {
+			final int idx = EXTRA_CODES.indexOf(Character.toUpperCase(puzzleStr.charAt(start)));
+			if (idx != -1)
+				return idx + 1;
+		}
+
+		throw new IllegalArgumentException("Unsupported extra regions: "
+				+ puzzleStr.subSequence(start, end));
+	}
+
+	private static Geometry getStandardGeometry(int size, int extra) {
+		// concurrent creation of the same geometry is harmless
+		Geometry geometry = STANDARD_GEOMETRIES[size][extra];
+		if (geometry == null) {
+			geometry = Geometry.of(StandardAreas.getAreas(size), getExtraRegions(size, extra));
+			STANDARD_GEOMETRIES[size][extra] = geometry;
+		}
+		return geometry;
+	}
+
+	private static ExtraRegion[] getExtraRegions(int size, int extra) {
+		return parseExtraRegions(size, extra == 0 ? "" : EXTRA_CODES.substring(extra - 1, extra));
+	}
+
+	static ExtraRegion[] parseExtraRegions(int size, String extra) {
 		if (extra.length() == 0)
 			return ExtraRegions.none();
 		else if (extra.equalsIgnoreCase("X"))
@@ -149,4 +239,48 @@ public class PuzzleDecoder {
 		else
 			throw new IllegalArgumentException();
 	}
+
+	/**
+	 * Presents US-ASCII bytes as characters without copying them.
+	 */
+	private static final class AsciiSequence implements CharSequence {
+		private final byte[] buffer;
+		private final int offset;
+		private final int length;
+
+		public AsciiSequence(byte[] buffer, int offset, int length) {
+			if (offset < 0 || length < 0 || offset + length > buffer.length)
+				throw new IndexOutOfBoundsException();
+
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public char charAt(int index) {
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException();
+
+			return (char) (buffer[offset + index] & 0xff);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end)
+				throw new IndexOutOfBoundsException();
+
+			return new AsciiSequence(buffer, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			char[] chars = new char[length];
+			for (int i = 0; i < length; i++)
+				chars[i] = charAt(i);
+			return new String(chars);
+		}
+	}
 }
@@ -0,0 +1,143 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.transfer;
+
+import java.util.Arrays;
+
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
+
+/**
+ * Encodes puzzles in the format read by {@link PuzzleDecoder}. Empty trailing fields are omitted
+ * and standard area layouts are left empty.
+ */
+public class PuzzleEncoder {
+	private static final String[] EXTRA_CODES = { "X", "H", "P", "C" };
+
+	private PuzzleEncoder() {
+	}
+
+	public static String encode(Puzzle puzzle) {
+		return encode(puzzle, null);
+	}
+
+	public static String encode(Puzzle puzzle, Solution solution) {
+		final int size = puzzle.getSize();
+		final Geometry geometry = puzzle.getGeometry();
+
+		StringBuilder sb = new StringBuilder(4 * size * size + 3);
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				int value = puzzle.getValue(row, col);
+				sb.append(value == Puzzle.UNDEFINED ? '.' : encodeValue(value));
+			}
+		}
+
+		final int cluesEnd = sb.length();
+
+		sb.append('|');
+		if (!isStandardAreas(geometry)) {
+			for (int row = 0; row < size; row++)
+				for (int col = 0; col < size; col++)
+					sb.append(encodeValue(geometry.getAreaCode(row, col)));
+		}
+
+		sb.append('|');
+		sb.append(getExtraRegionsCode(geometry));
+
+		sb.append('|');
+		if (solution != null)
+			appendValues(sb, solution, size);
+
+		// strip empty trailing fields
+		int length = sb.length();
+		while (length > cluesEnd && sb.charAt(length - 1) == '|')
+			length--;
+		sb.setLength(length);
+
+		return sb.toString();
+	}
+
+	public static String encodeValues(Solution solution, int size) {
+		StringBuilder sb = new StringBuilder(size * size);
+		appendValues(sb, solution, size);
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the character for the given zero-based value: '1' to '9' for 0 to 8, '0' for 9 and
+	 * 'A' onwards for larger values.
+	 */
+	public static char encodeValue(int value) {
+		if (value < 0 || value > 35)
+			throw new IllegalArgumentException();
+
+		if (value < 9)
+			return (char) ('1' + value);
+		else if (value == 9)
+			return '0';
+		else
+			return (char) ('A' + value - 10);
+	}
+
+	/**
+	 * Returns the code of the extra regions of the given geometry, an empty string if there are
+	 * none.
+	 */
+	public static String getExtraRegionsCode(Geometry geometry) {
+		if (geometry.getExtraRegions().length == 0)
+			return "";
+
+		final int size = geometry.getSize();
+		for (String code : EXTRA_CODES) {
+			try {
+				if (Arrays.equals(geometry.getExtraRegions(), PuzzleDecoder.parseExtraRegions(size,
+						code)))
+					return code;
+			}
+			catch (IllegalArgumentException e) {
+				// code not available for this size
+			}
+		}
+
+		throw new IllegalArgumentException("Unsupported extra regions");
+	}
+
+	private static void appendValues(StringBuilder sb, Solution solution, int size) {
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				int value = solution.getValue(row, col);
+				sb.append(value == Puzzle.UNDEFINED ? '.' : encodeValue(value));
+			}
+		}
+	}
+
+	private static boolean isStandardAreas(Geometry geometry) {
+		final int size = geometry.getSize();
+		final int[][] standard = StandardAreas.getAreas(size);
+		for (int row = 0; row < size; row++)
+			for (int col = 0; col < size; col++)
+				if (geometry.getAreaCode(row, col) != standard[row][col])
+					return false;
+		return true;
+	}
+}
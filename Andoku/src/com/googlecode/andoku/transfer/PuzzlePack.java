@@ -0,0 +1,210 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
+
+/**
+ * Read access to a binary puzzle pack as written by {@link PuzzlePackWriter}.
+ * 
+ * <pre>
+ * header      int magic, short version, byte size, byte flags, int count, int record size,
+ *             long offset of the geometry table
+ * records     short geometry, byte difficulty, clues, [solution]
+ * geometries  int count, per geometry: byte extra regions code, size * size bytes area codes
+ * </pre>
+ * 
+ * Clues and solutions are packed into 4 bits per cell, two cells per byte with the first cell in
+ * the high bits; 0 is an empty cell and value + 1 otherwise. All records have the same size, so a
+ * puzzle is read directly from its offset. Geometries are resolved when they are first used.
+ */
+public class PuzzlePack {
+	static final int MAGIC = 0x41444b50; // "ADKP"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 24;
+
+	static final int FLAG_SOLUTIONS = 1;
+
+	private final ByteBuffer buffer;
+	private final int size;
+	private final boolean hasSolutions;
+	private final int count;
+	private final int recordSize;
+	private final int geometriesOffset;
+	private final Geometry[] geometries;
+
+	public PuzzlePack(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a puzzle pack");
+		if (buffer.getShort(4) != VERSION)
+			throw new IOException("Unsupported puzzle pack version " + buffer.getShort(4));
+
+		size = buffer.get(6);
+		hasSolutions = (buffer.get(7) & FLAG_SOLUTIONS) != 0;
+		count = buffer.getInt(8);
+		recordSize = buffer.getInt(12);
+
+		if (size < 5 || size > 9 || count < 0 || recordSize != recordSize(size, hasSolutions))
+			throw new IOException("Corrupt puzzle pack header");
+
+		final long offset = buffer.getLong(16);
+		if (offset != HEADER_SIZE + (long) count * recordSize || buffer.capacity() < offset + 4)
+			throw new IOException("Corrupt puzzle pack header");
+
+		geometriesOffset = (int) offset;
+
+		final int geometryCount = buffer.getInt(geometriesOffset);
+		if (geometryCount < 0
+				|| buffer.capacity() < offset + 4 + (long) geometryCount * (1 + size * size))
+			throw new IOException("Truncated puzzle pack");
+
+		geometries = new Geometry[geometryCount];
+	}
+
+	/**
+	 * Maps the given file into memory.
+	 */
+	public static PuzzlePack open(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			return new PuzzlePack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally {
+			// the mapping stays valid after the channel has been closed
+			in.close();
+		}
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public boolean hasSolutions() {
+		return hasSolutions;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public Puzzle getPuzzle(int number) {
+		final int offset = offset(number);
+
+		Puzzle puzzle = new Puzzle(getGeometry(buffer.getShort(offset) & 0xffff));
+
+		int[] values = unpack(offset + 3);
+		for (int cell = 0; cell < values.length; cell++)
+			if (values[cell] != Puzzle.UNDEFINED)
+				puzzle.set(cell / size, cell % size, values[cell]);
+
+		return puzzle;
+	}
+
+	public Difficulty getDifficulty(int number) {
+		final int ordinal = buffer.get(offset(number) + 2);
+
+		Difficulty[] difficulties = Difficulty.values();
+		return ordinal >= 0 && ordinal < difficulties.length
+				? difficulties[ordinal]
+				: Difficulty.UNKNOWN;
+	}
+
+	/**
+	 * Returns the solution of the specified puzzle or <code>null</code> if it is not stored.
+	 */
+	public Solution getSolution(int number) {
+		if (!hasSolutions)
+			return null;
+
+		int[] values = unpack(offset(number) + 3 + packedLength(size));
+		if (values[0] == Puzzle.UNDEFINED)
+			return null;
+
+		int[][] solution = new int[size][size];
+		for (int cell = 0; cell < values.length; cell++)
+			solution[cell / size][cell % size] = values[cell];
+		return new Solution(solution);
+	}
+
+	static int packedLength(int size) {
+		return (size * size + 1) / 2;
+	}
+
+	static int recordSize(int size, boolean hasSolutions) {
+		return 3 + packedLength(size) * (hasSolutions ? 2 : 1);
+	}
+
+	private int offset(int number) {
+		if (number < 0 || number >= count)
+			throw new IndexOutOfBoundsException("Puzzle " + number + " not found");
+
+		return HEADER_SIZE + number * recordSize;
+	}
+
+	private int[] unpack(int offset) {
+		final int cells = size * size;
+
+		int[] values = new int[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			final int b = buffer.get(offset + cell / 2);
+			final int nibble = (cell & 1) == 0 ? b >> 4 & 0xf : b & 0xf;
+			values[cell] = nibble - 1;
+		}
+		return values;
+	}
+
+	private Geometry getGeometry(int index) {
+		// concurrent resolution of the same geometry is harmless
+		Geometry geometry = geometries[index];
+		if (geometry == null) {
+			geometry = readGeometry(index);
+			geometries[index] = geometry;
+		}
+		return geometry;
+	}
+
+	private Geometry readGeometry(int index) {
+		final int cells = size * size;
+
+		int position = geometriesOffset + 4 + index * (1 + cells);
+		final char extra = (char) buffer.get(position++);
+
+		int[][] areaCodes = new int[size][size];
+		for (int cell = 0; cell < cells; cell++)
+			areaCodes[cell / size][cell % size] = buffer.get(position++);
+
+		return Geometry.of(areaCodes, PuzzleDecoder.parseExtraRegions(size, extra == 0
+				? ""
+				: String.valueOf(extra)));
+	}
+}
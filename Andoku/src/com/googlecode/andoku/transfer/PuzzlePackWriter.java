@@ -0,0 +1,148 @@
+/*
+ * Andoku - a sudoku puzzle game for Android.
+ * Copyright (C) 2011  Markus Wiederkehr
+ *
+ * This file is part of Andoku.
+ *
+ * Andoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Andoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Andoku.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.googlecode.andoku.transfer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.googlecode.andoku.model.Difficulty;
+import com.googlecode.andoku.model.Geometry;
+import com.googlecode.andoku.model.Puzzle;
+import com.googlecode.andoku.model.Solution;
+
+/**
+ * Writes a binary puzzle pack in the format described in {@link PuzzlePack}. Records are streamed
+ * to the file; the geometry table is written and the header completed in {@link #close()}.
+ */
+public class PuzzlePackWriter {
+	private final File file;
+	private final int size;
+	private final boolean hasSolutions;
+	private final DataOutputStream out;
+
+	private final Map<Geometry, Integer> geometryIndexes = new HashMap<Geometry, Integer>();
+	private final List<Geometry> geometries = new ArrayList<Geometry>();
+
+	private final byte[] record;
+	private int count;
+
+	public PuzzlePackWriter(File file, int size, boolean hasSolutions) throws IOException {
+		if (size < 5 || size > 9)
+			throw new IllegalArgumentException("Unsupported size: " + size);
+
+		this.file = file;
+		this.size = size;
+		this.hasSolutions = hasSolutions;
+		this.record = new byte[PuzzlePack.recordSize(size, hasSolutions)];
+
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 8192));
+		out.write(new byte[PuzzlePack.HEADER_SIZE]);
+	}
+
+	/**
+	 * @param solution solution of the puzzle or <code>null</code>.
+	 */
+	public void add(Puzzle puzzle, Difficulty difficulty, Solution solution) throws IOException {
+		if (puzzle.getSize() != size)
+			throw new IllegalArgumentException("Expected size " + size + " but was "
+					+ puzzle.getSize());
+
+		final int geometry = getGeometryIndex(puzzle.getGeometry());
+
+		Arrays.fill(record, (byte) 0);
+		record[0] = (byte) (geometry >> 8);
+		record[1] = (byte) geometry;
+		record[2] = (byte) difficulty.ordinal();
+
+		for (int cell = 0; cell < size * size; cell++) {
+			pack(3, cell, puzzle.getValue(cell / size, cell % size));
+
+			if (hasSolutions && solution != null)
+				pack(3 + PuzzlePack.packedLength(size), cell, solution.getValue(cell / size, cell
+						% size));
+		}
+
+		out.write(record);
+		count++;
+	}
+
+	public void close() throws IOException {
+		final long geometriesOffset = PuzzlePack.HEADER_SIZE + (long) count * record.length;
+
+		out.writeInt(geometries.size());
+		for (Geometry geometry : geometries) {
+			out.writeByte(getExtraCode(geometry));
+			for (int cell = 0; cell < size * size; cell++)
+				out.writeByte(geometry.getAreaCode(cell / size, cell % size));
+		}
+		out.close();
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.writeInt(PuzzlePack.MAGIC);
+			raf.writeShort(PuzzlePack.VERSION);
+			raf.writeByte(size);
+			raf.writeByte(hasSolutions ? PuzzlePack.FLAG_SOLUTIONS : 0);
+			raf.writeInt(count);
+			raf.writeInt(record.length);
+			raf.writeLong(geometriesOffset);
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	private void pack(int offset, int cell, int value) {
+		final int nibble = value == Puzzle.UNDEFINED ? 0 : value + 1;
+		final int idx = offset + cell / 2;
+		record[idx] |= (cell & 1) == 0 ? nibble << 4 : nibble;
+	}
+
+	private int getGeometryIndex(Geometry geometry) {
+		Integer index = geometryIndexes.get(geometry);
+		if (index != null)
+			return index;
+
+		if (geometries.size() > 0xffff)
+			throw new IllegalStateException("Too many different geometries");
+
+		getExtraCode(geometry); // fail early for unsupported extra regions
+
+		index = geometries.size();
+		geometries.add(geometry);
+		geometryIndexes.put(geometry, index);
+		return index;
+	}
+
+	private static int getExtraCode(Geometry geometry) {
+		String code = PuzzleEncoder.getExtraRegionsCode(geometry);
+		return code.length() == 0 ? 0 : code.charAt(0);
+	}
+}